@@ -1,9 +1,12 @@
 package com.clearsolutions.javapracticaltest;
 
+import com.clearsolutions.javapracticaltest.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class TestAssignmentApplication {
 
   public static void main(String[] args) {
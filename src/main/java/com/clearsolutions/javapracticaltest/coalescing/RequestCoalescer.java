@@ -0,0 +1,74 @@
+package com.clearsolutions.javapracticaltest.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collapses identical concurrent computations into one.
+ *
+ * <p>The first caller of a key runs the computation on its own thread; callers arriving with the
+ * same key while it runs get a future of the same result instead of computing it again, so they
+ * can release their thread instead of waiting. The key therefore has to capture everything the
+ * result depends on, including the version of the data it is computed from, and the result has
+ * to be immutable since it is shared.
+ *
+ * <p>Executed and collapsed computations are counted in {@code user.search.requests}, tagged with
+ * {@code result=executed} and {@code result=coalesced}.
+ */
+@Component
+public class RequestCoalescer {
+
+  private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  private final Counter executed;
+
+  private final Counter coalesced;
+
+  /**
+   * Creates a coalescer without computations in flight.
+   *
+   * @param meterRegistry The registry to publish the request counters to.
+   */
+  public RequestCoalescer(MeterRegistry meterRegistry) {
+    this.executed = Counter.builder("user.search.requests")
+        .tag("result", "executed")
+        .register(meterRegistry);
+    this.coalesced = Counter.builder("user.search.requests")
+        .tag("result", "coalesced")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs the computation unless an identical one is already running, in which case its result is
+   * shared.
+   *
+   * @param key         The key identifying the computation and the data it reads.
+   * @param computation The computation to run.
+   * @param <T>         The type of the result.
+   * @return The future result; it is already completed for the caller that ran the computation.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> execute(Object key, Supplier<T> computation) {
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      coalesced.increment();
+      return (CompletableFuture<T>) running.copy();
+    }
+    executed.increment();
+    try {
+      created.complete(computation.get());
+    } catch (RuntimeException | Error e) {
+      created.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, created);
+    }
+    return (CompletableFuture<T>) created.copy();
+  }
+
+}
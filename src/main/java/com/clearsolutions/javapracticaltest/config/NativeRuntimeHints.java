@@ -0,0 +1,64 @@
+package com.clearsolutions.javapracticaltest.config;
+
+import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.exception.ErrorResponse;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.query.QueryPlan;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import java.util.stream.Stream;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Reflection and resource hints for the ahead-of-time compiled application.
+ *
+ * <p>The json-patch library deserializes its operations through Jackson annotations on
+ * non-public constructors and loads its messages from property files, neither of which the AOT
+ * engine can discover on its own. The DTOs are registered explicitly as well, since some of them
+ * are only returned through {@code ResponseEntity<?>}, and so is the serializer Jackson creates
+ * reflectively for {@link ProjectedUser}.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+  private static final String[] JSON_PATCH_TYPES = {
+      "com.github.fge.jsonpatch.JsonPatch",
+      "com.github.fge.jsonpatch.JsonPatchOperation",
+      "com.github.fge.jsonpatch.PathValueOperation",
+      "com.github.fge.jsonpatch.DualPathOperation",
+      "com.github.fge.jsonpatch.AddOperation",
+      "com.github.fge.jsonpatch.CopyOperation",
+      "com.github.fge.jsonpatch.MoveOperation",
+      "com.github.fge.jsonpatch.RemoveOperation",
+      "com.github.fge.jsonpatch.ReplaceOperation",
+      "com.github.fge.jsonpatch.TestOperation",
+      "com.github.fge.jsonpatch.JsonPatchMessages",
+      "com.github.fge.jackson.jsonpointer.JsonPointer",
+      "com.github.fge.jackson.jsonpointer.JsonPointerMessages"
+  };
+
+  private static final String PROJECTED_USER_SERIALIZER =
+      "com.clearsolutions.javapracticaltest.model.ProjectedUser$Serializer";
+
+  private final BindingReflectionHintsRegistrar bindingRegistrar =
+      new BindingReflectionHintsRegistrar();
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    Stream.of(JSON_PATCH_TYPES).forEach(type -> hints.reflection().registerType(
+        TypeReference.of(type),
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+        MemberCategory.INVOKE_PUBLIC_METHODS,
+        MemberCategory.DECLARED_FIELDS));
+    hints.resources()
+        .registerPattern("com/github/fge/jsonpatch/messages.properties")
+        .registerPattern("com/github/fge/jackson/*.properties");
+    bindingRegistrar.registerReflectionHints(hints.reflection(), UserDto.class,
+        ErrorResponse.class, ProjectedUser.class, QueryPlan.class, UserQuery.class);
+    hints.reflection().registerType(TypeReference.of(PROJECTED_USER_SERIALIZER),
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+  }
+
+}
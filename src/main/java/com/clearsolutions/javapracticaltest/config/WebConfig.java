@@ -0,0 +1,23 @@
+package com.clearsolutions.javapracticaltest.config;
+
+import com.clearsolutions.javapracticaltest.ratelimit.AdmissionControlInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC configuration of the application.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+  private final AdmissionControlInterceptor admissionControlInterceptor;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/users", "/users/**");
+  }
+
+}
@@ -3,7 +3,12 @@ package com.clearsolutions.javapracticaltest.controller;
 import com.clearsolutions.javapracticaltest.exception.AgeValidationException;
 import com.clearsolutions.javapracticaltest.exception.DateRangeException;
 import com.clearsolutions.javapracticaltest.exception.ErrorResponse;
+import com.clearsolutions.javapracticaltest.exception.FieldTooLongException;
+import com.clearsolutions.javapracticaltest.exception.IdempotencyKeyReusedException;
+import com.clearsolutions.javapracticaltest.exception.InvalidFieldsException;
+import com.clearsolutions.javapracticaltest.exception.InvalidQueryException;
 import com.clearsolutions.javapracticaltest.exception.UserNotFoundException;
+import com.clearsolutions.javapracticaltest.exception.WriteBacklogFullException;
 import jakarta.validation.ConstraintViolationException;
 import java.util.HashMap;
 import java.util.Map;
@@ -89,6 +94,26 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
   }
 
+  /**
+   * Handles exceptions FieldTooLongException by returning an HTTP status 400.
+   */
+  @ExceptionHandler(FieldTooLongException.class)
+  public ResponseEntity<?> handleFieldTooLongExceptions(FieldTooLongException ex) {
+    logger.error("Handling FieldTooLongException: {}", ex.getMessage(), ex);
+    ErrorResponse errorResponse = new ErrorResponse(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+  }
+
+  /**
+   * Handles exceptions WriteBacklogFullException by returning an HTTP status 503.
+   */
+  @ExceptionHandler(WriteBacklogFullException.class)
+  public ResponseEntity<?> handleWriteBacklogFullExceptions(WriteBacklogFullException ex) {
+    logger.error("Handling WriteBacklogFullException: {}", ex.getMessage(), ex);
+    ErrorResponse errorResponse = new ErrorResponse(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+  }
+
   /**
    * Handles exceptions DateRangeException by returning an HTTP status 400.
    */
@@ -100,13 +125,52 @@ public class GlobalExceptionHandler {
   }
 
   /**
-   * Handles exceptions ConstraintViolationException by returning an HTTP status 400.
+   * Handles exceptions InvalidFieldsException by returning an HTTP status 400.
    */
-  @ExceptionHandler(ConstraintViolationException.class)
-  public ResponseEntity<?> handleIlConstraintViolationExceptions(ConstraintViolationException ex) {
-    logger.error("Handling ConstraintViolationException: {}", ex.getMessage(), ex);
+  @ExceptionHandler(InvalidFieldsException.class)
+  public ResponseEntity<?> handleInvalidFieldsExceptions(InvalidFieldsException ex) {
+    logger.error("Handling InvalidFieldsException: {}", ex.getMessage(), ex);
+    ErrorResponse errorResponse = new ErrorResponse(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+  }
+
+  /**
+   * Handles exceptions InvalidQueryException by returning an HTTP status 400.
+   */
+  @ExceptionHandler(InvalidQueryException.class)
+  public ResponseEntity<?> handleInvalidQueryExceptions(InvalidQueryException ex) {
+    logger.error("Handling InvalidQueryException: {}", ex.getMessage(), ex);
     ErrorResponse errorResponse = new ErrorResponse(ex.getMessage());
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
   }
 
+  /**
+   * Handles exceptions IdempotencyKeyReusedException by returning an HTTP status 422.
+   */
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  public ResponseEntity<?> handleIdempotencyKeyReusedExceptions(
+      IdempotencyKeyReusedException ex) {
+    logger.error("Handling IdempotencyKeyReusedException: {}", ex.getMessage(), ex);
+    ErrorResponse errorResponse = new ErrorResponse(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+  }
+
+  /**
+   * Handles ConstraintViolationException by returning a map of the violating properties with
+   * their error messages, like {@link #handleMethodArgumentNotValidExceptions}.
+   *
+   * @param ex The ConstraintViolationException to be handled.
+   * @return A map containing property paths as keys and corresponding error messages as values.
+   */
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  @ExceptionHandler(ConstraintViolationException.class)
+  public Map<String, String> handleIlConstraintViolationExceptions(
+      ConstraintViolationException ex) {
+    logger.error("Handling ConstraintViolationException: {}", ex.getMessage(), ex);
+    Map<String, String> errors = new HashMap<>();
+    ex.getConstraintViolations().forEach(violation ->
+        errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+    return errors;
+  }
+
 }
\ No newline at end of file
@@ -1,19 +1,31 @@
 package com.clearsolutions.javapracticaltest.controller;
 
 import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.idempotency.IdempotencyService;
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.query.QueryPlan;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import com.clearsolutions.javapracticaltest.ratelimit.ClientIdResolver;
+import com.clearsolutions.javapracticaltest.service.ValidationService;
 import com.clearsolutions.javapracticaltest.service.impl.UserServiceImpl;
 import com.github.fge.jsonpatch.JsonPatch;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -28,16 +40,32 @@ public class UserController {
 
   private final UserServiceImpl userService;
 
+  private final IdempotencyService idempotencyService;
+
+  private final ClientIdResolver clientIdResolver;
+
+  private final ValidationService validationService;
+
 
   /**
-   * Creates a new user.
+   * Creates a new user. Retries of the same client carrying the same idempotency key and body get
+   * the originally created user back instead of creating a duplicate. The body is validated only
+   * when the request is executed for the first time; a retry is answered by the key lookup alone.
    *
-   * @param userDto The user data to be created.
+   * @param idempotencyKey The optional idempotency key of the request.
+   * @param userDto        The user data to be created.
+   * @param request        The request, used to identify the client.
    * @return The created user.
    */
   @PostMapping
-  public UserDto create(@Valid @RequestBody UserDto userDto) {
-    return userService.create(userDto);
+  public UserDto create(
+      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+      @RequestBody UserDto userDto, HttpServletRequest request) {
+    return idempotencyService.execute(clientIdResolver.clientIdOf(request), "POST /users",
+        idempotencyKey, userDto, () -> {
+          validationService.validateDto(userDto);
+          return userService.create(userDto);
+        });
   }
 
   /**
@@ -65,6 +93,17 @@ public class UserController {
     return userService.update(id, userDto);
   }
 
+  /**
+   * Retrieves a user by their ID.
+   *
+   * @param id The ID of the user to retrieve.
+   * @return The JSON encoding of the user DTO.
+   */
+  @GetMapping("/{id}")
+  public EncodedJson findById(@PathVariable long id) {
+    return userService.findEncodedUserById(id);
+  }
+
   /**
    * Deletes a user by their ID.
    *
@@ -80,12 +119,51 @@ public class UserController {
    *
    * @param fromDate The start date of the birthdate range.
    * @param toDate   The end date of the birthdate range.
-   * @return A list of UserDto objects within the specified birthdate range.
+   * @return The future JSON array of UserDto objects within the specified birthdate range; the
+   *     request thread is released while an identical search already in flight completes.
    */
   @GetMapping(params = {"fromDate", "toDate"})
-  public List<UserDto> searchUsersByBirthDateRange(@RequestParam LocalDate fromDate,
-      @RequestParam LocalDate toDate) {
-    return userService.searchUsersByBirthDateRange(fromDate, toDate);
+  public CompletableFuture<EncodedJson> searchUsersByBirthDateRange(
+      @RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
+    return userService.searchEncodedUsersByBirthDateRange(fromDate, toDate);
+  }
+
+  /**
+   * Retrieves the selected fields of the users within a specified birthdate range.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param fields   The names of the fields to return, e.g. {@code fields=id,email}.
+   * @return A list of objects holding only the selected fields of each user.
+   */
+  @GetMapping(params = {"fromDate", "toDate", "fields"})
+  public List<ProjectedUser> searchUsersByBirthDateRange(@RequestParam LocalDate fromDate,
+      @RequestParam LocalDate toDate, @RequestParam List<String> fields) {
+    return userService.searchUsersByBirthDateRange(fromDate, toDate, UserProjection.of(fields));
+  }
+
+  /**
+   * Retrieves the users matching all the given criteria, e.g. born within a range, with a last
+   * name starting with a prefix and living in a city.
+   *
+   * @param query The criteria, order and limit of the query.
+   * @return The JSON array of the matching UserDto objects.
+   */
+  @GetMapping("/query")
+  public EncodedJson query(@ModelAttribute UserQuery query) {
+    return userService.queryEncodedUsers(query);
+  }
+
+  /**
+   * Describes how a query would be executed: the chosen index, the alternatives considered with
+   * their estimates and the order of the remaining checks.
+   *
+   * @param query The criteria, order and limit of the query.
+   * @return The plan of the query.
+   */
+  @GetMapping(path = "/query", params = "explain=true")
+  public QueryPlan explainQuery(@ModelAttribute UserQuery query) {
+    return userService.explainQuery(query);
   }
 
 }
\ No newline at end of file
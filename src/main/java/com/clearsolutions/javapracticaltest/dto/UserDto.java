@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.Size;
 import java.time.LocalDate;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,20 +20,25 @@ public class UserDto {
 
   @NotBlank
   @Email
+  @Size(max = 255)
   private String email;
 
   @NotBlank
+  @Size(max = 255)
   private String firstName;
 
   @NotBlank
+  @Size(max = 255)
   private String lastName;
 
   @Past
   @NotNull
   private LocalDate birthDate;
 
+  @Size(max = 1024)
   private String address;
 
+  @Size(max = 255)
   private String phoneNumber;
 
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.clearsolutions.javapracticaltest.exception;
+
+public class FieldTooLongException extends RuntimeException {
+
+  public FieldTooLongException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,9 @@
+package com.clearsolutions.javapracticaltest.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+
+}
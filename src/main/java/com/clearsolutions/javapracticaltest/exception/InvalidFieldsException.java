@@ -0,0 +1,9 @@
+package com.clearsolutions.javapracticaltest.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+  public InvalidFieldsException(String message) {
+    super(message);
+  }
+
+}
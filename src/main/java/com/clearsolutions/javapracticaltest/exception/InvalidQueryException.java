@@ -0,0 +1,9 @@
+package com.clearsolutions.javapracticaltest.exception;
+
+public class InvalidQueryException extends RuntimeException {
+
+  public InvalidQueryException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,9 @@
+package com.clearsolutions.javapracticaltest.exception;
+
+public class WriteBacklogFullException extends RuntimeException {
+
+  public WriteBacklogFullException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,15 @@
+package com.clearsolutions.javapracticaltest.idempotency;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the idempotency key cache.
+ *
+ * @param maxKeys The maximum number of idempotency keys remembered at the same time.
+ * @param keyTtl  How long the response of an idempotency key is remembered.
+ */
+@ConfigurationProperties(prefix = "idempotency")
+public record IdempotencyProperties(int maxKeys, Duration keyTtl) {
+
+}
@@ -0,0 +1,160 @@
+package com.clearsolutions.javapracticaltest.idempotency;
+
+import com.clearsolutions.javapracticaltest.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that executes write operations at most once per idempotency key.
+ *
+ * <p>Keys are scoped to the client that sent them, and every key remembers a SHA-256 hash of the
+ * request it was first used with; reusing a key with a different request is rejected. The results
+ * of recent keys are kept in a bounded cache and expire after the configured time to live.
+ * Concurrent requests with the same key wait for the single in-flight execution instead of
+ * running the operation again, and in-flight keys are never evicted. Failed executions are not
+ * remembered, so they can be retried.
+ */
+@Service
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyService {
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+  private final ObjectMapper objectMapper;
+
+  private final int maxKeys;
+
+  private final long keyTtlNanos;
+
+  private final LongSupplier clock;
+
+  @Autowired
+  public IdempotencyService(IdempotencyProperties properties, ObjectMapper objectMapper) {
+    this(properties, objectMapper, System::nanoTime);
+  }
+
+  IdempotencyService(IdempotencyProperties properties, ObjectMapper objectMapper,
+      LongSupplier clock) {
+    this.objectMapper = objectMapper;
+    this.maxKeys = properties.maxKeys();
+    this.keyTtlNanos = properties.keyTtl().toNanos();
+    this.clock = clock;
+  }
+
+  /**
+   * Executes the operation unless it was already executed with the same key.
+   *
+   * @param clientId The identifier of the client that sent the key.
+   * @param scope    The operation the key belongs to.
+   * @param key      The idempotency key sent by the client, or {@code null} if there is none.
+   * @param request  The request the operation is executed for.
+   * @param action   The operation to execute.
+   * @param <T>      The type of the operation result.
+   * @return The result of the operation, either freshly computed or remembered for the key.
+   * @throws IdempotencyKeyReusedException If the key was already used with a different request.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String clientId, String scope, String key, Object request,
+      Supplier<T> action) {
+    if (key == null) {
+      return action.get();
+    }
+    Key cacheKey = new Key(clientId, scope, key);
+    byte[] requestHash = hash(request);
+    long now = clock.getAsLong();
+    Entry created = new Entry(cacheKey, requestHash, new CompletableFuture<>(),
+        now + keyTtlNanos);
+    Entry entry = entries.compute(cacheKey,
+        (k, existing) -> existing == null || existing.isExpired(now) ? created : existing);
+    if (entry != created) {
+      if (!MessageDigest.isEqual(entry.requestHash(), requestHash)) {
+        throw new IdempotencyKeyReusedException(
+            "Idempotency key " + key + " was already used with a different request.");
+      }
+      return (T) await(entry.result());
+    }
+    insertionOrder.add(created);
+    evict(now);
+    try {
+      T result = action.get();
+      created.result().complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      entries.remove(cacheKey, created);
+      created.result().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private Object await(CompletableFuture<Object> result) {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private byte[] hash(Object request) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Drops the oldest entries while there are too many or they have expired. Entries that are
+   * still in flight are skipped, as requests waiting for them would otherwise run the operation a
+   * second time.
+   */
+  private void evict(long now) {
+    Iterator<Entry> iterator = insertionOrder.iterator();
+    while (iterator.hasNext()) {
+      Entry oldest = iterator.next();
+      boolean replaced = entries.get(oldest.key()) != oldest;
+      if (!replaced && entries.size() <= maxKeys && !oldest.isExpired(now)) {
+        return;
+      }
+      if (replaced || oldest.result().isDone()) {
+        iterator.remove();
+        entries.remove(oldest.key(), oldest);
+      }
+    }
+  }
+
+  private record Key(String clientId, String scope, String key) {
+
+  }
+
+  private record Entry(Key key, byte[] requestHash, CompletableFuture<Object> result,
+      long expiresAt) {
+
+    boolean isExpired(long now) {
+      return expiresAt - now <= 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.clearsolutions.javapracticaltest.jsoncache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A response body assembled from already encoded JSON documents.
+ *
+ * @param documents The encoded documents.
+ * @param array     Whether the documents are written as the elements of a JSON array; otherwise
+ *                  there is exactly one document, written as it is.
+ */
+public record EncodedJson(List<byte[]> documents, boolean array) {
+
+  /**
+   * Creates a body consisting of a single document.
+   */
+  public static EncodedJson of(byte[] document) {
+    return new EncodedJson(List.of(document), false);
+  }
+
+  /**
+   * Creates a body holding the documents as a JSON array.
+   */
+  public static EncodedJson arrayOf(List<byte[]> documents) {
+    return new EncodedJson(documents, true);
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeTo(OutputStream)} writes.
+   */
+  public long length() {
+    long length = array ? Math.max(2, documents.size() + 1) : 0;
+    for (byte[] document : documents) {
+      length += document.length;
+    }
+    return length;
+  }
+
+  /**
+   * Writes the documents to the stream without decoding or copying them.
+   *
+   * @param out The stream to write to.
+   * @throws IOException If writing fails.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    if (!array) {
+      out.write(documents.get(0));
+      return;
+    }
+    out.write('[');
+    for (int i = 0; i < documents.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      out.write(documents.get(i));
+    }
+    out.write(']');
+  }
+
+}
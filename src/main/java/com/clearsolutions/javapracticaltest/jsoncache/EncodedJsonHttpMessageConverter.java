@@ -0,0 +1,48 @@
+package com.clearsolutions.javapracticaltest.jsoncache;
+
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes {@link EncodedJson} response bodies straight to the response stream.
+ */
+@Component
+public class EncodedJsonHttpMessageConverter extends AbstractHttpMessageConverter<EncodedJson> {
+
+  public EncodedJsonHttpMessageConverter() {
+    super(MediaType.APPLICATION_JSON);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return EncodedJson.class == clazz;
+  }
+
+  @Override
+  protected boolean canRead(MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected EncodedJson readInternal(Class<? extends EncodedJson> clazz,
+      HttpInputMessage inputMessage) throws HttpMessageNotReadableException {
+    throw new HttpMessageNotReadableException("Encoded JSON cannot be read", inputMessage);
+  }
+
+  @Override
+  protected Long getContentLength(EncodedJson body, MediaType contentType) {
+    return body.length();
+  }
+
+  @Override
+  protected void writeInternal(EncodedJson body, HttpOutputMessage outputMessage)
+      throws IOException {
+    body.writeTo(outputMessage.getBody());
+  }
+
+}
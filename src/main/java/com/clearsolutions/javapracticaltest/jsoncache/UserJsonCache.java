@@ -0,0 +1,128 @@
+package com.clearsolutions.javapracticaltest.jsoncache;
+
+import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.mapper.DataMapper;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the JSON encoding of users, so unchanged users are not mapped and serialized again for
+ * every response.
+ *
+ * <p>An entry holds the encoded {@link UserDto} of one version of a user and is only served for
+ * that version, so a stale entry can never be returned even if an invalidation is missed. The
+ * cached documents are kept within the configured memory budget by evicting the oldest entries;
+ * replaced and invalidated entries count against the budget until they are evicted too, since
+ * the eviction queue still references them.
+ */
+@Component
+@EnableConfigurationProperties(UserJsonCacheProperties.class)
+public class UserJsonCache {
+
+  /**
+   * The estimated heap size of an entry apart from its document.
+   */
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+  private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+  private final AtomicLong size = new AtomicLong();
+
+  private final long maxSize;
+
+  private final DataMapper<UserDto, User> userMapper;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param properties   The memory budget of the cache.
+   * @param userMapper   The mapper creating the DTOs to encode.
+   * @param objectMapper The object mapper encoding the DTOs, configured like the one writing
+   *                     responses.
+   */
+  public UserJsonCache(UserJsonCacheProperties properties, DataMapper<UserDto, User> userMapper,
+      ObjectMapper objectMapper) {
+    this.maxSize = properties.maxSize().toBytes();
+    this.userMapper = userMapper;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Returns the JSON encoding of the user, from the cache if this version of the user was
+   * encoded before.
+   *
+   * @param user The user to encode.
+   * @return The encoded user DTO; it must not be modified.
+   */
+  public byte[] encode(User user) {
+    Entry entry = entries.get(user.getId());
+    if (entry != null && entry.version() == user.getVersion()) {
+      return entry.json();
+    }
+    byte[] json = write(userMapper.toDto(user));
+    Entry created = new Entry(user.getId(), user.getVersion(), json);
+    Entry stored = entries.merge(user.getId(), created,
+        (existing, replacement) -> existing.version() >= replacement.version()
+            ? existing : replacement);
+    if (stored == created) {
+      size.addAndGet(created.size());
+      insertionOrder.add(created);
+      evict();
+    }
+    return json;
+  }
+
+  /**
+   * Drops the cached encoding of a user, e.g. because the user was changed or deleted.
+   *
+   * @param id The ID of the user.
+   */
+  public void invalidate(long id) {
+    entries.remove(id);
+  }
+
+  /**
+   * Returns the estimated heap size of the entries not evicted yet.
+   */
+  public long size() {
+    return size.get();
+  }
+
+  private byte[] write(UserDto userDto) {
+    try {
+      return objectMapper.writeValueAsBytes(userDto);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void evict() {
+    Entry oldest;
+    while (size.get() > maxSize && (oldest = insertionOrder.poll()) != null) {
+      entries.remove(oldest.id(), oldest);
+      size.addAndGet(-oldest.size());
+    }
+  }
+
+  private record Entry(long id, long version, byte[] json) {
+
+    long size() {
+      return json.length + ENTRY_OVERHEAD;
+    }
+
+  }
+
+}
@@ -0,0 +1,14 @@
+package com.clearsolutions.javapracticaltest.jsoncache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the encoded user JSON cache.
+ *
+ * @param maxSize The memory budget of the cached JSON documents.
+ */
+@ConfigurationProperties(prefix = "user.json-cache")
+public record UserJsonCacheProperties(DataSize maxSize) {
+
+}
@@ -11,10 +11,12 @@ import org.mapstruct.MappingTarget;
 public abstract class UserMapper implements DataMapper<UserDto, User> {
 
   @Mapping(target = "id", ignore = true)
+  @Mapping(target = "version", ignore = true)
   public abstract User toEntity(UserDto userDto);
 
   @Override
   @Mapping(target = "id", ignore = true)
+  @Mapping(target = "version", ignore = true)
   public abstract User updateEntity(UserDto userDto, @MappingTarget User user);
 
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.clearsolutions.javapracticaltest.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The values of the fields selected by a {@link UserProjection}, read from a single user. It is
+ * written to JSON as an object holding just those fields.
+ *
+ * @param projection The projection the values were read with.
+ * @param values     The values, in the order of the projected fields.
+ */
+@JsonSerialize(using = ProjectedUser.Serializer.class)
+public record ProjectedUser(UserProjection projection, Object[] values) {
+
+  /**
+   * Returns the value of a projected field.
+   *
+   * @param field The field to read.
+   * @return The value of the field.
+   * @throws IllegalArgumentException If the field is not part of the projection.
+   */
+  public Object get(UserField field) {
+    int index = projection.fields().indexOf(field);
+    if (index < 0) {
+      throw new IllegalArgumentException("Field is not projected: " + field.jsonName());
+    }
+    return values[index];
+  }
+
+  /**
+   * Writes the projected fields without building an intermediate DTO or map.
+   */
+  static class Serializer extends StdSerializer<ProjectedUser> {
+
+    Serializer() {
+      super(ProjectedUser.class);
+    }
+
+    @Override
+    public void serialize(ProjectedUser user, JsonGenerator generator,
+        SerializerProvider provider) throws IOException {
+      List<UserField> fields = user.projection().fields();
+      generator.writeStartObject(user);
+      for (int i = 0; i < fields.size(); i++) {
+        provider.defaultSerializeField(fields.get(i).jsonName(), user.values()[i], generator);
+      }
+      generator.writeEndObject();
+    }
+
+  }
+
+}
@@ -8,7 +8,7 @@ import lombok.Setter;
 /**
  * Model class representing a model for storing user information.
  */
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @Setter
 public class User {
@@ -20,5 +20,6 @@ public class User {
   private LocalDate birthDate;
   private String address;
   private String phoneNumber;
+  private long version;
 
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.clearsolutions.javapracticaltest.model;
+
+import com.clearsolutions.javapracticaltest.exception.InvalidFieldsException;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * The user fields a client can select, in the order they are written to responses.
+ */
+public enum UserField {
+
+  ID("id", User::getId),
+  EMAIL("email", User::getEmail),
+  FIRST_NAME("firstName", User::getFirstName),
+  LAST_NAME("lastName", User::getLastName),
+  BIRTH_DATE("birthDate", User::getBirthDate),
+  ADDRESS("address", User::getAddress),
+  PHONE_NUMBER("phoneNumber", User::getPhoneNumber);
+
+  private final String jsonName;
+
+  private final Function<User, Object> getter;
+
+  UserField(String jsonName, Function<User, Object> getter) {
+    this.jsonName = jsonName;
+    this.getter = getter;
+  }
+
+  /**
+   * Returns the name of the field in JSON documents.
+   */
+  public String jsonName() {
+    return jsonName;
+  }
+
+  /**
+   * Reads the value of the field from a user.
+   *
+   * @param user The user to read from.
+   * @return The value of the field.
+   */
+  public Object valueOf(User user) {
+    return getter.apply(user);
+  }
+
+  /**
+   * Finds a field by its name in JSON documents.
+   *
+   * @param jsonName The name of the field.
+   * @return The field with the given name.
+   * @throws InvalidFieldsException If there is no such field.
+   */
+  public static UserField fromJsonName(String jsonName) {
+    return Arrays.stream(values())
+        .filter(field -> field.jsonName.equals(jsonName))
+        .findFirst()
+        .orElseThrow(() -> new InvalidFieldsException("Unknown field: " + jsonName));
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.clearsolutions.javapracticaltest.model;
+
+import com.clearsolutions.javapracticaltest.exception.InvalidFieldsException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A selection of user fields. Repositories use it to copy only the selected fields out of the
+ * stored users.
+ *
+ * @param fields The selected fields, in response order.
+ */
+public record UserProjection(List<UserField> fields) {
+
+  /**
+   * The projection selecting every field.
+   */
+  public static final UserProjection ALL = new UserProjection(List.of(UserField.values()));
+
+  public UserProjection {
+    fields = List.copyOf(fields);
+  }
+
+  /**
+   * Creates a projection from field names as they appear in JSON documents. Blank names are
+   * ignored and duplicates are selected once.
+   *
+   * @param jsonNames The names of the fields to select.
+   * @return The projection selecting the named fields.
+   * @throws InvalidFieldsException If a name is unknown or no field is named at all.
+   */
+  public static UserProjection of(Collection<String> jsonNames) {
+    Set<UserField> fields = EnumSet.noneOf(UserField.class);
+    jsonNames.stream()
+        .map(String::trim)
+        .filter(name -> !name.isEmpty())
+        .map(UserField::fromJsonName)
+        .forEach(fields::add);
+    if (fields.isEmpty()) {
+      throw new InvalidFieldsException("At least one field must be selected");
+    }
+    return new UserProjection(List.copyOf(fields));
+  }
+
+  /**
+   * Copies the selected fields of a user.
+   *
+   * @param user The user to project.
+   * @return The projected user.
+   */
+  public ProjectedUser project(User user) {
+    Object[] values = new Object[fields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = fields.get(i).valueOf(user);
+    }
+    return new ProjectedUser(this, values);
+  }
+
+}
@@ -0,0 +1,54 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * An index of dates with a histogram of the entries per year.
+ */
+class DateIndex extends SecondaryIndex<LocalDate, Integer> {
+
+  DateIndex(String name) {
+    super(name);
+  }
+
+  @Override
+  protected List<Integer> bucketsOf(LocalDate key) {
+    return List.of(key.getYear());
+  }
+
+  /**
+   * Estimates the number of entries within a range from the histogram, assuming the entries of a
+   * year are spread evenly over its days.
+   *
+   * @param from The earliest date, inclusive; {@code null} for no lower bound.
+   * @param to   The latest date, inclusive; {@code null} for no upper bound.
+   */
+  long estimateBetween(LocalDate from, LocalDate to) {
+    LocalDate first = firstKey();
+    LocalDate last = lastKey();
+    if (first == null || last == null) {
+      return 0;
+    }
+    LocalDate low = from == null || from.isBefore(first) ? first : from;
+    LocalDate high = to == null || to.isAfter(last) ? last : to;
+    if (low.isAfter(high)) {
+      return 0;
+    }
+    double estimate = 0;
+    for (int year = low.getYear(); year <= high.getYear(); year++) {
+      LocalDate start = year == low.getYear() ? low : LocalDate.of(year, 1, 1);
+      LocalDate end = year == high.getYear() ? high : LocalDate.of(year, 12, 31);
+      long days = ChronoUnit.DAYS.between(start, end) + 1;
+      estimate += (double) bucketEntries(year) * days / Year.of(year).length();
+    }
+    return (long) Math.ceil(estimate);
+  }
+
+  long[] idsBetween(LocalDate from, LocalDate to) {
+    return idsBetween(from, to, true);
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import java.util.List;
+
+/**
+ * The description of how a {@link UserQuery} is executed.
+ *
+ * @param access       The chosen way to read the candidate users.
+ * @param alternatives All the ways to read the candidate users that were considered, including
+ *                     the chosen one.
+ * @param filters      The conditions every candidate is checked against, in evaluation order;
+ *                     the checks of a candidate stop at the first condition it fails.
+ * @param sort         The order of the returned users.
+ * @param limit        The maximum number of users returned, {@code null} if unlimited.
+ * @param statistics   The index statistics the estimates are based on.
+ */
+public record QueryPlan(AccessPath access, List<AccessPath> alternatives, List<String> filters,
+                        String sort, Integer limit, List<IndexStatistics> statistics) {
+
+  /**
+   * A way to read the candidate users of a query.
+   *
+   * @param index         The index read, {@code none} for a scan of all users.
+   * @param condition     The condition the index is looked up with.
+   * @param estimatedRows The estimated number of candidate users.
+   * @param estimatedCost The estimated cost of reading the candidates, in units of reading one
+   *                      user during a full scan.
+   */
+  public record AccessPath(String index, String condition, long estimatedRows,
+                           double estimatedCost) {
+
+  }
+
+  /**
+   * The statistics of an index.
+   *
+   * @param index        The name of the index.
+   * @param entries      The number of users in the index.
+   * @param distinctKeys The number of distinct keys in the index.
+   */
+  public record IndexStatistics(String index, long entries, long distinctKeys) {
+
+  }
+
+}
@@ -0,0 +1,190 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An ordered index from a user field to the IDs of the users having each value, together with
+ * the cardinality statistics the query planner estimates its selectivity from: the number of
+ * entries, the number of distinct keys and a histogram counting the entries per bucket of keys.
+ *
+ * <p>The IDs of a key are kept in a sorted array that is replaced, never modified, so lookups may
+ * run concurrently with changes; changes must be serialized by the caller.
+ *
+ * @param <K> The type of the keys.
+ * @param <B> The type of the histogram buckets.
+ */
+abstract class SecondaryIndex<K extends Comparable<? super K>, B> {
+
+  private static final long[] EMPTY = new long[0];
+
+  private final String name;
+
+  private final ConcurrentNavigableMap<K, long[]> ids = new ConcurrentSkipListMap<>();
+
+  private final Map<B, LongAdder> histogram = new ConcurrentHashMap<>();
+
+  private final AtomicLong entries = new AtomicLong();
+
+  private final AtomicLong distinctKeys = new AtomicLong();
+
+  SecondaryIndex(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the histogram buckets a key is counted in.
+   */
+  protected abstract List<B> bucketsOf(K key);
+
+  String name() {
+    return name;
+  }
+
+  void add(K key, long id) {
+    long[] keyIds = ids.getOrDefault(key, EMPTY);
+    int index = Arrays.binarySearch(keyIds, id);
+    if (index >= 0) {
+      return;
+    }
+    int insertion = -index - 1;
+    long[] added = new long[keyIds.length + 1];
+    System.arraycopy(keyIds, 0, added, 0, insertion);
+    added[insertion] = id;
+    System.arraycopy(keyIds, insertion, added, insertion + 1, keyIds.length - insertion);
+    ids.put(key, added);
+    if (keyIds.length == 0) {
+      distinctKeys.incrementAndGet();
+    }
+    entries.incrementAndGet();
+    bucketsOf(key).forEach(bucket -> histogram.computeIfAbsent(bucket, b -> new LongAdder())
+        .increment());
+  }
+
+  void remove(K key, long id) {
+    long[] keyIds = ids.getOrDefault(key, EMPTY);
+    int index = Arrays.binarySearch(keyIds, id);
+    if (index < 0) {
+      return;
+    }
+    if (keyIds.length == 1) {
+      ids.remove(key);
+      distinctKeys.decrementAndGet();
+    } else {
+      long[] removed = new long[keyIds.length - 1];
+      System.arraycopy(keyIds, 0, removed, 0, index);
+      System.arraycopy(keyIds, index + 1, removed, index, removed.length - index);
+      ids.put(key, removed);
+    }
+    entries.decrementAndGet();
+    bucketsOf(key).forEach(bucket -> histogram.get(bucket).decrement());
+  }
+
+  long entries() {
+    return entries.get();
+  }
+
+  long distinctKeys() {
+    return distinctKeys.get();
+  }
+
+  /**
+   * Returns the average number of entries per key, the classic estimate of the rows matching a
+   * single key.
+   */
+  long entriesPerKey() {
+    long keys = distinctKeys();
+    return keys == 0 ? 0 : (entries() + keys - 1) / keys;
+  }
+
+  long bucketEntries(B bucket) {
+    LongAdder count = histogram.get(bucket);
+    return count == null ? 0 : Math.max(0, count.sum());
+  }
+
+  K firstKey() {
+    Map.Entry<K, long[]> first = ids.firstEntry();
+    return first == null ? null : first.getKey();
+  }
+
+  K lastKey() {
+    Map.Entry<K, long[]> last = ids.lastEntry();
+    return last == null ? null : last.getKey();
+  }
+
+  QueryPlan.IndexStatistics statistics() {
+    return new QueryPlan.IndexStatistics(name, entries(), distinctKeys());
+  }
+
+  /**
+   * Returns the IDs indexed under a key, in ascending order.
+   */
+  long[] idsEqualTo(K key) {
+    return ids.getOrDefault(key, EMPTY).clone();
+  }
+
+  /**
+   * Returns the IDs indexed under the keys of a range, in ascending order.
+   *
+   * @param from The lowest key, inclusive; {@code null} for no lower bound.
+   * @param to   The highest key, exclusive unless {@code toInclusive}; {@code null} for no upper
+   *             bound.
+   */
+  long[] idsBetween(K from, K to, boolean toInclusive) {
+    ConcurrentNavigableMap<K, long[]> range = ids;
+    if (from != null) {
+      range = range.tailMap(from, true);
+    }
+    if (to != null) {
+      range = range.headMap(to, toInclusive);
+    }
+    return sorted(range.values());
+  }
+
+  /**
+   * Counts the entries of the keys in a range by walking the index, like the index dives of a
+   * database optimizer, giving up after a number of keys.
+   *
+   * @param from        The lowest key, inclusive.
+   * @param to          The highest key, exclusive.
+   * @param maxKeys     The number of keys to walk at most.
+   * @return The number of entries in the range, or {@code -1} if the range holds more keys.
+   */
+  long countBetween(K from, K to, int maxKeys) {
+    long count = 0;
+    int keys = 0;
+    for (long[] keyIds : ids.subMap(from, true, to, false).values()) {
+      if (++keys > maxKeys) {
+        return -1;
+      }
+      count += keyIds.length;
+    }
+    return count;
+  }
+
+  private static long[] sorted(Collection<long[]> values) {
+    List<long[]> idArrays = List.copyOf(values);
+    long[] all = new long[idArrays.stream().mapToInt(keyIds -> keyIds.length).sum()];
+    int size = 0;
+    for (long[] keyIds : idArrays) {
+      System.arraycopy(keyIds, 0, all, size, keyIds.length);
+      size += keyIds.length;
+    }
+    Arrays.sort(all);
+    int distinct = 0;
+    for (int i = 0; i < all.length; i++) {
+      if (distinct == 0 || all[i] != all[distinct - 1]) {
+        all[distinct++] = all[i];
+      }
+    }
+    return distinct == all.length ? all : Arrays.copyOf(all, distinct);
+  }
+
+}
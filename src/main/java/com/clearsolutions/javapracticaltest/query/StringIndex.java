@@ -0,0 +1,70 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An index of strings, ignoring case, with a histogram of the entries per key prefix of one and
+ * of two characters.
+ */
+class StringIndex extends SecondaryIndex<String, String> {
+
+  /**
+   * The number of keys walked at most to count the entries of a prefix longer than the buckets.
+   */
+  private static final int MAX_PROBED_KEYS = 256;
+
+  private static final int BUCKET_LENGTH = 2;
+
+  StringIndex(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the form of a string the index is keyed and searched by.
+   */
+  static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  protected List<String> bucketsOf(String key) {
+    return key.length() < BUCKET_LENGTH
+        ? List.of(key)
+        : List.of(key.substring(0, 1), key.substring(0, BUCKET_LENGTH));
+  }
+
+  /**
+   * Estimates the number of entries equal to a value.
+   */
+  long estimateEqualTo(String value) {
+    return entriesPerKey();
+  }
+
+  /**
+   * Estimates the number of entries starting with a prefix. Prefixes up to the bucket length are
+   * counted by the histogram. Longer ones are counted in the index if they cover few keys, and
+   * are otherwise estimated by the bucket of their beginning, an upper bound.
+   */
+  long estimateStartingWith(String prefix) {
+    String normalized = normalize(prefix);
+    if (normalized.isEmpty()) {
+      return entries();
+    }
+    if (normalized.length() <= BUCKET_LENGTH) {
+      return bucketEntries(normalized);
+    }
+    long count = countBetween(normalized, normalized + Character.MAX_VALUE, MAX_PROBED_KEYS);
+    return count >= 0 ? count : bucketEntries(normalized.substring(0, BUCKET_LENGTH));
+  }
+
+  long[] idsEqualTo(String value) {
+    return super.idsEqualTo(normalize(value));
+  }
+
+  long[] idsStartingWith(String prefix) {
+    String normalized = normalize(prefix);
+    return idsBetween(normalized, normalized + Character.MAX_VALUE, false);
+  }
+
+}
@@ -0,0 +1,198 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Secondary indexes of the users by birthdate, first name, last name and email, which the
+ * repository does not offer. The ID is the primary key of the repository and needs no index.
+ *
+ * <p>The indexes are built from the repository on startup and kept up to date by the service
+ * changing the users. Only the indexed keys are kept on the heap, not the users. An index may
+ * briefly lag behind the repository or keep a deleted user, so it only nominates candidates:
+ * every candidate is read from the repository and checked against the query again.
+ *
+ * <p>The keys still take heap in proportion to the number of users, so the indexes are disabled
+ * over a {@link UserRepository#isHeapBounded() heap bounded} repository: they stay empty and
+ * queries scan the repository instead.
+ */
+@Component
+public class UserIndexes {
+
+  private final DateIndex birthDates = new DateIndex("birthDate");
+
+  private final StringIndex firstNames = new StringIndex("firstName");
+
+  private final StringIndex lastNames = new StringIndex("lastName");
+
+  private final StringIndex emails = new StringIndex("email");
+
+  private final Map<Long, IndexedUser> indexed = new HashMap<>();
+
+  private final UserRepository userRepository;
+
+  private final Lock lock = new ReentrantLock();
+
+  private final boolean enabled;
+
+  private volatile int size;
+
+  /**
+   * Creates the indexes of the users currently in the repository, unless the repository bounds
+   * its heap.
+   *
+   * @param userRepository The repository to index.
+   */
+  public UserIndexes(UserRepository userRepository) {
+    this.userRepository = userRepository;
+    this.enabled = !userRepository.isHeapBounded();
+    if (enabled) {
+      userRepository.streamAll(false).forEach(user -> index(user.getId(), IndexedUser.of(user)));
+      size = indexed.size();
+    }
+  }
+
+  /**
+   * Returns whether the indexes are maintained and can be used to look users up.
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Indexes a new or changed user. An older version of the user than the indexed one is ignored,
+   * so concurrent changes of a user leave the latest version indexed. A user no longer in the
+   * repository is ignored too: it was deleted after it was written, and its removal from the
+   * indexes may already have happened.
+   *
+   * @param user The user to index.
+   */
+  public void put(User user) {
+    if (!enabled) {
+      return;
+    }
+    IndexedUser keys = IndexedUser.of(user);
+    lock.lock();
+    try {
+      IndexedUser previous = indexed.get(user.getId());
+      if (previous != null && previous.version() >= keys.version()) {
+        return;
+      }
+      if (userRepository.findByIdWithoutCaching(user.getId()).isEmpty()) {
+        return;
+      }
+      if (previous != null) {
+        unindex(user.getId(), previous);
+      }
+      index(user.getId(), keys);
+      size = indexed.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes a deleted user from the indexes.
+   *
+   * @param id The ID of the user.
+   */
+  public void remove(long id) {
+    if (!enabled) {
+      return;
+    }
+    lock.lock();
+    try {
+      IndexedUser previous = indexed.remove(id);
+      if (previous != null) {
+        unindex(id, previous);
+      }
+      size = indexed.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of indexed users.
+   */
+  public int size() {
+    return size;
+  }
+
+  DateIndex birthDates() {
+    return birthDates;
+  }
+
+  StringIndex firstNames() {
+    return firstNames;
+  }
+
+  StringIndex lastNames() {
+    return lastNames;
+  }
+
+  StringIndex emails() {
+    return emails;
+  }
+
+  List<QueryPlan.IndexStatistics> statistics() {
+    return List.of(birthDates.statistics(), firstNames.statistics(), lastNames.statistics(),
+        emails.statistics());
+  }
+
+  private void index(long id, IndexedUser keys) {
+    indexed.put(id, keys);
+    if (keys.birthDate() != null) {
+      birthDates.add(keys.birthDate(), id);
+    }
+    if (keys.firstName() != null) {
+      firstNames.add(keys.firstName(), id);
+    }
+    if (keys.lastName() != null) {
+      lastNames.add(keys.lastName(), id);
+    }
+    if (keys.email() != null) {
+      emails.add(keys.email(), id);
+    }
+  }
+
+  private void unindex(long id, IndexedUser keys) {
+    if (keys.birthDate() != null) {
+      birthDates.remove(keys.birthDate(), id);
+    }
+    if (keys.firstName() != null) {
+      firstNames.remove(keys.firstName(), id);
+    }
+    if (keys.lastName() != null) {
+      lastNames.remove(keys.lastName(), id);
+    }
+    if (keys.email() != null) {
+      emails.remove(keys.email(), id);
+    }
+  }
+
+  /**
+   * The indexed keys of a version of a user.
+   */
+  private record IndexedUser(long version, LocalDate birthDate, String firstName,
+                             String lastName, String email) {
+
+    static IndexedUser of(User user) {
+      return new IndexedUser(user.getVersion(), user.getBirthDate(), normalize(user.getFirstName()),
+          normalize(user.getLastName()), normalize(user.getEmail()));
+    }
+
+    private static String normalize(String value) {
+      return value == null ? null : StringIndex.normalize(value);
+    }
+
+  }
+
+}
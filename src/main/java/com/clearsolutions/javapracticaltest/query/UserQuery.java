@@ -0,0 +1,27 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * A query for the users matching all the given criteria; criteria left {@code null} match every
+ * user. Names, emails and addresses are compared ignoring case.
+ *
+ * @param id                  The ID of the user.
+ * @param bornFrom            The earliest birthdate, inclusive.
+ * @param bornTo              The latest birthdate, inclusive.
+ * @param firstNameStartsWith The prefix of the first name.
+ * @param lastNameStartsWith  The prefix of the last name.
+ * @param email               The email.
+ * @param addressContains     A part of the address, e.g. a city.
+ * @param sort                The name of the field to order the users by, prefixed with
+ *                            {@code -} for descending order; by ID by default.
+ * @param limit               The maximum number of users to return; all by default.
+ */
+public record UserQuery(Long id,
+                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornFrom,
+                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornTo,
+                        String firstNameStartsWith, String lastNameStartsWith, String email,
+                        String addressContains, String sort, Integer limit) {
+
+}
@@ -0,0 +1,288 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserField;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executes multi-criteria user queries with a small cost-based planner.
+ *
+ * <p>Every criterion backed by an index is a candidate way to read the users: the ID through the
+ * repository, the birthdate range, the name prefixes and the email through the
+ * {@link UserIndexes}. The planner estimates the users each of them yields from the index
+ * statistics and picks the cheapest, falling back to a scan of all users when no index is
+ * selective enough to pay for reading its candidates one by one, or when the indexes are
+ * disabled. The candidates are then checked against all criteria, the most selective first,
+ * stopping at the first one that fails. Candidates are read without caching them, so a query does
+ * not evict the users recently used by point lookups.
+ *
+ * <p>The candidates are streamed and checked one at a time, never collected first. Users ordered
+ * by ID come out of every access path in order, so a limited query stops reading as soon as
+ * enough users matched; other orders keep only the best users seen in a bounded heap.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserQueryEngine {
+
+  /**
+   * The cost of reading a user by ID, relative to reading one user during a full scan.
+   */
+  private static final double FETCH_COST = 4;
+
+  /**
+   * The number of users assumed when the indexes are disabled and cannot count them, so a full
+   * scan is only chosen when there is no other way to read the users.
+   */
+  private static final long UNKNOWN_USERS = Long.MAX_VALUE;
+
+  private static final String NO_INDEX = "none";
+
+  private final UserRepository userRepository;
+
+  private final UserIndexes userIndexes;
+
+  /**
+   * Describes how a query would be executed, without executing it.
+   *
+   * @param query The query to plan.
+   * @return The plan of the query.
+   * @throws com.clearsolutions.javapracticaltest.exception.InvalidFieldsException If the query
+   *                                                                               sorts by an
+   *                                                                               unknown field.
+   */
+  public QueryPlan explain(UserQuery query) {
+    Plan plan = plan(query);
+    return new QueryPlan(plan.access().path(),
+        plan.alternatives().stream().map(Access::path).toList(),
+        plan.filters().stream().map(Criterion::condition).toList(),
+        plan.order().toString(), query.limit(), userIndexes.statistics());
+  }
+
+  /**
+   * Executes a query.
+   *
+   * @param query The query to execute.
+   * @return The matching users in the requested order, at most the requested number of them.
+   * @throws com.clearsolutions.javapracticaltest.exception.InvalidFieldsException If the query
+   *                                                                               sorts by an
+   *                                                                               unknown field.
+   */
+  public List<User> execute(UserQuery query) {
+    Plan plan = plan(query);
+    Order order = plan.order();
+    Predicate<User> matches = plan.filters().stream()
+        .map(Criterion::predicate)
+        .reduce(user -> true, Predicate::and);
+    Stream<User> users = candidates(plan.access(), order.field() == UserField.ID
+        && order.descending()).filter(matches);
+    Integer limit = query.limit();
+    if (order.field() == UserField.ID) {
+      return (limit == null ? users : users.limit(limit)).toList();
+    }
+    return limit == null ? users.sorted(order.comparator()).toList()
+        : first(users, order.comparator(), limit);
+  }
+
+  private Plan plan(UserQuery query) {
+    List<Criterion> criteria = criteria(query);
+    List<Access> alternatives = new ArrayList<>();
+    for (Criterion criterion : criteria) {
+      if (criterion.lookup() != null) {
+        alternatives.add(new Access(new QueryPlan.AccessPath(criterion.index(),
+            criterion.condition(), criterion.estimatedRows(),
+            criterion.estimatedRows() * FETCH_COST), criterion.lookup()));
+      }
+    }
+    long users = estimatedUsers();
+    alternatives.add(new Access(new QueryPlan.AccessPath(NO_INDEX, "all users", users, users),
+        null));
+    Access chosen = alternatives.stream()
+        .min(Comparator.comparingDouble(access -> access.path().estimatedCost()))
+        .orElseThrow();
+    List<Criterion> filters = criteria.stream()
+        .sorted(Comparator.comparingLong(Criterion::estimatedRows))
+        .toList();
+    return new Plan(chosen, alternatives, filters, Order.of(query.sort()));
+  }
+
+  private List<Criterion> criteria(UserQuery query) {
+    List<Criterion> criteria = new ArrayList<>();
+    if (query.id() != null) {
+      long id = query.id();
+      criteria.add(new Criterion("id", "id = " + id, user -> user.getId() == id, 1,
+          () -> new long[] {id}));
+    }
+    if (query.bornFrom() != null || query.bornTo() != null) {
+      LocalDate from = query.bornFrom();
+      LocalDate to = query.bornTo();
+      DateIndex index = userIndexes.birthDates();
+      criteria.add(new Criterion(index.name(), describeRange(from, to),
+          user -> isBornWithin(user, from, to), index.estimateBetween(from, to),
+          indexed(() -> index.idsBetween(from, to))));
+    }
+    if (query.email() != null) {
+      String email = StringIndex.normalize(query.email());
+      StringIndex index = userIndexes.emails();
+      criteria.add(new Criterion(index.name(), "email = '" + email + "'",
+          user -> email.equals(normalize(user.getEmail())), index.estimateEqualTo(email),
+          indexed(() -> index.idsEqualTo(email))));
+    }
+    if (query.firstNameStartsWith() != null) {
+      criteria.add(startsWith(userIndexes.firstNames(), User::getFirstName,
+          query.firstNameStartsWith()));
+    }
+    if (query.lastNameStartsWith() != null) {
+      criteria.add(startsWith(userIndexes.lastNames(), User::getLastName,
+          query.lastNameStartsWith()));
+    }
+    if (query.addressContains() != null) {
+      String part = StringIndex.normalize(query.addressContains());
+      criteria.add(new Criterion(NO_INDEX, "address contains '" + part + "'",
+          user -> user.getAddress() != null && normalize(user.getAddress()).contains(part),
+          estimatedUsers(), null));
+    }
+    return criteria;
+  }
+
+  private Stream<User> candidates(Access access, boolean descending) {
+    if (access.lookup() == null) {
+      return userRepository.streamAll(descending);
+    }
+    long[] ids = access.lookup().get();
+    return IntStream.range(0, ids.length)
+        .mapToLong(i -> ids[descending ? ids.length - 1 - i : i])
+        .mapToObj(userRepository::findByIdWithoutCaching)
+        .flatMap(Optional::stream);
+  }
+
+  /**
+   * Returns the estimated number of users, {@link #UNKNOWN_USERS} if the indexes are disabled.
+   */
+  private long estimatedUsers() {
+    return userIndexes.enabled() ? userIndexes.size() : UNKNOWN_USERS;
+  }
+
+  /**
+   * Returns the index lookup, or {@code null} if the indexes are disabled and cannot be used.
+   */
+  private Supplier<long[]> indexed(Supplier<long[]> lookup) {
+    return userIndexes.enabled() ? lookup : null;
+  }
+
+  private Criterion startsWith(StringIndex index, Function<User, String> field,
+      String prefix) {
+    String normalized = StringIndex.normalize(prefix);
+    return new Criterion(index.name(), index.name() + " starts with '" + normalized + "'",
+        user -> {
+          String value = field.apply(user);
+          return value != null && normalize(value).startsWith(normalized);
+        },
+        index.estimateStartingWith(normalized),
+        indexed(() -> index.idsStartingWith(normalized)));
+  }
+
+  /**
+   * Returns the first users in an order, keeping only as many users as requested in a heap.
+   */
+  private static List<User> first(Stream<User> users, Comparator<User> order, int limit) {
+    PriorityQueue<User> best = new PriorityQueue<>(order.reversed());
+    users.forEach(user -> {
+      best.add(user);
+      if (best.size() > limit) {
+        best.poll();
+      }
+    });
+    List<User> first = new ArrayList<>(best);
+    first.sort(order);
+    return first;
+  }
+
+  private static boolean isBornWithin(User user, LocalDate from, LocalDate to) {
+    LocalDate birthDate = user.getBirthDate();
+    return birthDate != null
+        && (from == null || !birthDate.isBefore(from))
+        && (to == null || !birthDate.isAfter(to));
+  }
+
+  private static String describeRange(LocalDate from, LocalDate to) {
+    if (from == null) {
+      return "birthDate <= " + to;
+    }
+    return to == null ? "birthDate >= " + from : "birthDate between " + from + " and " + to;
+  }
+
+  private static String normalize(String value) {
+    return value == null ? null : StringIndex.normalize(value);
+  }
+
+  /**
+   * A criterion of a query.
+   *
+   * @param index         The index able to look the criterion up, {@code none} if there is
+   *                      none.
+   * @param condition     The description of the criterion.
+   * @param predicate     The check of a user against the criterion.
+   * @param estimatedRows The estimated number of users matching the criterion.
+   * @param lookup        The index lookup of the IDs of the users matching the criterion, in
+   *                      ascending order; {@code null} if there is no index.
+   */
+  private record Criterion(String index, String condition, Predicate<User> predicate,
+                           long estimatedRows, Supplier<long[]> lookup) {
+
+  }
+
+  /**
+   * A way to read the candidate users; a full scan if there is no lookup.
+   */
+  private record Access(QueryPlan.AccessPath path, Supplier<long[]> lookup) {
+
+  }
+
+  private record Plan(Access access, List<Access> alternatives, List<Criterion> filters,
+                      Order order) {
+
+  }
+
+  /**
+   * The order of the query results.
+   */
+  private record Order(UserField field, boolean descending) {
+
+    static Order of(String sort) {
+      if (sort == null) {
+        return new Order(UserField.ID, false);
+      }
+      boolean descending = sort.startsWith("-");
+      return new Order(UserField.fromJsonName(descending ? sort.substring(1) : sort), descending);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Comparator<User> comparator() {
+      Comparator<User> byField = Comparator.comparing(
+          user -> (Comparable) field.valueOf(user),
+          Comparator.nullsLast(Comparator.naturalOrder()));
+      Comparator<User> order = byField.thenComparingLong(User::getId);
+      return descending ? order.reversed() : order;
+    }
+
+    @Override
+    public String toString() {
+      return field.jsonName() + (descending ? " desc" : " asc");
+    }
+
+  }
+
+}
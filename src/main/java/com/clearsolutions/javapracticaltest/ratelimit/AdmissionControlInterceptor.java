@@ -0,0 +1,113 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import com.clearsolutions.javapracticaltest.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Interceptor that admits or rejects user requests before they reach the controller.
+ *
+ * <p>Every request is weighted by its cost: birthdate range searches and multi-criteria queries
+ * are expensive, all other operations are cheap. A request is rejected with HTTP 429 and a
+ * {@code Retry-After} header when either the total cost of in-flight requests would exceed the
+ * configured limit or the bucket of its client is empty. The concurrency limit is checked first,
+ * so a request turned away because the server is busy does not cost the client any tokens.
+ */
+@Component
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+  private static final String PERMITS_ATTRIBUTE =
+      AdmissionControlInterceptor.class.getName() + ".permits";
+
+  private final AdmissionControlProperties properties;
+
+  private final ClientIdResolver clientIdResolver;
+
+  private final ObjectMapper objectMapper;
+
+  private final ClientRateLimiter rateLimiter;
+
+  private final Semaphore concurrencyLimiter;
+
+  /**
+   * Creates the interceptor from the admission control settings.
+   *
+   * @param properties       The admission control settings.
+   * @param clientIdResolver The resolver of the client a request is charged to.
+   * @param objectMapper     The mapper used to write rejection bodies.
+   */
+  public AdmissionControlInterceptor(AdmissionControlProperties properties,
+      ClientIdResolver clientIdResolver, ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.clientIdResolver = clientIdResolver;
+    this.objectMapper = objectMapper;
+    this.rateLimiter = new ClientRateLimiter(properties.tokensPerSecond(),
+        properties.burstCapacity(), properties.maxClients(), System::nanoTime);
+    this.concurrencyLimiter = new Semaphore(properties.maxConcurrentCost());
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws IOException {
+    if (!properties.enabled() || request.getAttribute(PERMITS_ATTRIBUTE) != null) {
+      return true;
+    }
+    int cost = costOf(request);
+    if (!concurrencyLimiter.tryAcquire(cost)) {
+      reject(response, properties.concurrencyRetryAfter(),
+          "Server is busy. Please try again later.");
+      return false;
+    }
+    long waitNanos = rateLimiter.tryAcquire(clientIdResolver.clientIdOf(request), cost);
+    if (waitNanos > 0) {
+      concurrencyLimiter.release(cost);
+      reject(response, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L),
+          "Too many requests. Please slow down.");
+      return false;
+    }
+    request.setAttribute(PERMITS_ATTRIBUTE, cost);
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Object permits = request.getAttribute(PERMITS_ATTRIBUTE);
+    if (permits != null) {
+      request.removeAttribute(PERMITS_ATTRIBUTE);
+      concurrencyLimiter.release((Integer) permits);
+    }
+  }
+
+  private int costOf(HttpServletRequest request) {
+    if (!HttpMethod.GET.matches(request.getMethod())) {
+      return properties.pointCost();
+    }
+    if (request.getRequestURI().endsWith("/users/query")) {
+      return properties.queryCost();
+    }
+    return request.getParameter("fromDate") != null
+        ? properties.rangeSearchCost() : properties.pointCost();
+  }
+
+  private void reject(HttpServletResponse response, long retryAfterSeconds, String message)
+      throws IOException {
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, retryAfterSeconds)));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+  }
+
+}
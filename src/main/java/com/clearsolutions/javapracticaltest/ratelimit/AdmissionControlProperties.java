@@ -0,0 +1,37 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the admission control layer in front of the user endpoints.
+ *
+ * @param enabled               Whether admission control is applied at all.
+ * @param clientHeader          The request header identifying the client behind a trusted
+ *                              gateway.
+ * @param trustClientHeader     Whether clients are identified by the client header instead of
+ *                              their remote address.
+ * @param tokensPerSecond       The refill rate of every client bucket.
+ * @param burstCapacity         The burst capacity of every client bucket.
+ * @param maxClients            The maximum number of clients with their own bucket.
+ * @param rangeSearchCost       The cost of a birthdate range search.
+ * @param queryCost             The cost of a multi-criteria user query.
+ * @param pointCost             The cost of any other user operation.
+ * @param maxConcurrentCost     The total cost of requests allowed to run at the same time.
+ * @param concurrencyRetryAfter The Retry-After value, in seconds, when the concurrency limit is
+ *                              hit.
+ */
+@ConfigurationProperties(prefix = "admission")
+public record AdmissionControlProperties(
+    boolean enabled,
+    String clientHeader,
+    boolean trustClientHeader,
+    double tokensPerSecond,
+    long burstCapacity,
+    int maxClients,
+    int rangeSearchCost,
+    int queryCost,
+    int pointCost,
+    int maxConcurrentCost,
+    long concurrencyRetryAfter) {
+
+}
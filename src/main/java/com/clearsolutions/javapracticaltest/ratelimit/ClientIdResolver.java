@@ -0,0 +1,38 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the identity of the client that sent a request.
+ *
+ * <p>Clients are identified by their remote address. The client header is only taken into
+ * account when it is explicitly trusted, that is when a gateway in front of the application sets
+ * it and strips it from incoming requests; otherwise every client could pick its own identity.
+ */
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+public class ClientIdResolver {
+
+  private final AdmissionControlProperties properties;
+
+  /**
+   * Returns the identifier of the client that sent the request.
+   *
+   * @param request The request to identify the client of.
+   * @return The client header if it is trusted and present, otherwise the remote address.
+   */
+  public String clientIdOf(HttpServletRequest request) {
+    if (properties.trustClientHeader()) {
+      String clientId = request.getHeader(properties.clientHeader());
+      if (clientId != null) {
+        return clientId;
+      }
+    }
+    return request.getRemoteAddr();
+  }
+
+}
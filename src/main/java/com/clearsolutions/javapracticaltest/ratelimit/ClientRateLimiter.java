@@ -0,0 +1,98 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client rate limiter backed by one {@link TokenBucket} per client.
+ *
+ * <p>The number of tracked clients is bounded. When the limit is reached, buckets that have
+ * refilled completely are swept away, and if there is still no room the new client shares a
+ * single overflow bucket until some state is freed. A sweep walks every bucket, so it runs at most
+ * once per refill interval, the time an empty bucket takes to fill up again; a bucket that was
+ * not full at the previous sweep cannot have become eligible any sooner.
+ */
+public class ClientRateLimiter {
+
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+  private final double tokensPerSecond;
+
+  private final long capacity;
+
+  private final int maxClients;
+
+  private final LongSupplier clock;
+
+  private final TokenBucket overflowBucket;
+
+  private final long sweepIntervalNanos;
+
+  private final AtomicLong nextSweepNanos;
+
+  /**
+   * Creates a new rate limiter.
+   *
+   * @param tokensPerSecond The refill rate of every client bucket.
+   * @param capacity        The burst capacity of every client bucket.
+   * @param maxClients      The maximum number of clients with their own bucket.
+   * @param clock           The source of the current time in nanoseconds.
+   */
+  public ClientRateLimiter(double tokensPerSecond, long capacity, int maxClients,
+      LongSupplier clock) {
+    this.tokensPerSecond = tokensPerSecond;
+    this.capacity = capacity;
+    this.maxClients = maxClients;
+    this.clock = clock;
+    long now = clock.getAsLong();
+    this.overflowBucket = new TokenBucket(tokensPerSecond, capacity, now);
+    this.sweepIntervalNanos = Math.max(1L, (long) (capacity * 1_000_000_000L / tokensPerSecond));
+    this.nextSweepNanos = new AtomicLong(now);
+  }
+
+  /**
+   * Tries to take the given number of tokens from the bucket of the client.
+   *
+   * @param clientId The identifier of the client.
+   * @param cost     The number of tokens to take.
+   * @return {@code 0} if the request is admitted, otherwise the number of nanoseconds the client
+   *     should wait before retrying.
+   */
+  public long tryAcquire(String clientId, int cost) {
+    long now = clock.getAsLong();
+    TokenBucket bucket = buckets.get(clientId);
+    if (bucket == null) {
+      bucket = register(clientId, now);
+    }
+    return bucket.tryConsume(cost, now);
+  }
+
+  /**
+   * Returns the number of clients that currently have their own bucket.
+   */
+  public int trackedClients() {
+    return buckets.size();
+  }
+
+  private TokenBucket register(String clientId, long now) {
+    if (buckets.size() >= maxClients && !sweep(now)) {
+      return overflowBucket;
+    }
+    TokenBucket created = new TokenBucket(tokensPerSecond, capacity, now);
+    TokenBucket existing = buckets.putIfAbsent(clientId, created);
+    return existing != null ? existing : created;
+  }
+
+  private boolean sweep(long now) {
+    long nextSweep = nextSweepNanos.get();
+    if (now - nextSweep < 0
+        || !nextSweepNanos.compareAndSet(nextSweep, now + sweepIntervalNanos)) {
+      return false;
+    }
+    buckets.values().removeIf(bucket -> bucket.isFull(now));
+    return buckets.size() < maxClients;
+  }
+
+}
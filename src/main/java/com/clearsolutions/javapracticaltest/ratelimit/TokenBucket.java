@@ -0,0 +1,69 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm (GCRA).
+ *
+ * <p>The whole bucket state is a single "theoretical arrival time" stored in an
+ * {@link AtomicLong}, so consuming tokens is a short CAS loop without any locking.
+ */
+public class TokenBucket {
+
+  private final long emissionIntervalNanos;
+
+  private final long burstToleranceNanos;
+
+  private final AtomicLong theoreticalArrivalTime;
+
+  /**
+   * Creates a full token bucket.
+   *
+   * @param tokensPerSecond The refill rate of the bucket.
+   * @param capacity        The maximum number of tokens the bucket can hold.
+   * @param nowNanos        The current time in nanoseconds.
+   */
+  public TokenBucket(double tokensPerSecond, long capacity, long nowNanos) {
+    if (tokensPerSecond <= 0 || capacity <= 0) {
+      throw new IllegalArgumentException("Token rate and capacity must be positive.");
+    }
+    this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / tokensPerSecond));
+    this.burstToleranceNanos = emissionIntervalNanos * capacity;
+    this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Tries to take the given number of tokens from the bucket.
+   *
+   * @param cost     The number of tokens to take.
+   * @param nowNanos The current time in nanoseconds.
+   * @return {@code 0} if the tokens were taken, otherwise the number of nanoseconds after which
+   *     the same request would be admitted.
+   */
+  public long tryConsume(int cost, long nowNanos) {
+    long increment = emissionIntervalNanos * cost;
+    while (true) {
+      long tat = theoreticalArrivalTime.get();
+      long newTat = (tat - nowNanos < 0 ? nowNanos : tat) + increment;
+      long waitNanos = newTat - nowNanos - burstToleranceNanos;
+      if (waitNanos > 0) {
+        return waitNanos;
+      }
+      if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+        return 0L;
+      }
+    }
+  }
+
+  /**
+   * Checks whether the bucket is completely refilled. A full bucket carries no state that differs
+   * from a newly created one, so it can be dropped without affecting the client.
+   *
+   * @param nowNanos The current time in nanoseconds.
+   * @return {@code true} if the bucket holds its full capacity.
+   */
+  public boolean isFull(long nowNanos) {
+    return theoreticalArrivalTime.get() - nowNanos <= 0;
+  }
+
+}
@@ -0,0 +1,112 @@
+package com.clearsolutions.javapracticaltest.repository;
+
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of {@link User} models.
+ *
+ * <p>Users handed to or returned by a repository must not be mutated afterwards; changes are made
+ * on a copy and stored with {@link #replace(User, User)}.
+ */
+public interface UserRepository {
+
+  /**
+   * Finds a user by their ID.
+   *
+   * @param id The ID of the user to find.
+   * @return The user with the specified ID, or an empty optional if there is none.
+   */
+  Optional<User> findById(long id);
+
+  /**
+   * Finds a user by their ID as part of a bulk read, such as checking the candidates of a query.
+   * Unlike {@link #findById(long)}, the read does not make the user recently used in any cache of
+   * the repository.
+   *
+   * @param id The ID of the user to find.
+   * @return The user with the specified ID, or an empty optional if there is none.
+   */
+  default Optional<User> findByIdWithoutCaching(long id) {
+    return findById(id);
+  }
+
+  /**
+   * Assigns a new ID and the first version to the user and stores it.
+   *
+   * @param user The user to store.
+   * @return The stored user.
+   */
+  User insert(User user);
+
+  /**
+   * Replaces a user with a new version, provided nobody has changed it in the meantime.
+   *
+   * @param expected    The user as it was read from the repository.
+   * @param replacement The new version of the user.
+   * @return {@code true} if the user was replaced, {@code false} if it was changed or deleted
+   *     concurrently.
+   */
+  boolean replace(User expected, User replacement);
+
+  /**
+   * Deletes a user by their ID.
+   *
+   * @param id The ID of the user to delete.
+   * @return {@code true} if the user was deleted, {@code false} if there was no such user.
+   */
+  boolean delete(long id);
+
+  /**
+   * Finds the users born within the given range, both ends included, ordered by ID.
+   *
+   * @param fromDate The start date of the range.
+   * @param toDate   The end date of the range.
+   * @return The users within the range.
+   */
+  List<User> findByBirthDateRange(LocalDate fromDate, LocalDate toDate);
+
+  /**
+   * Finds the users born within the given range, both ends included, ordered by ID, reading only
+   * the fields selected by the projection.
+   *
+   * @param fromDate   The start date of the range.
+   * @param toDate     The end date of the range.
+   * @param projection The fields to read.
+   * @return The projected users within the range.
+   */
+  List<ProjectedUser> findByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      UserProjection projection);
+
+  /**
+   * Streams all users ordered by ID, for bulk reads such as scanning all users for a query. A
+   * repository bounding its heap reads the users lazily as the stream is consumed, so a consumer
+   * stopping early, for example after enough users matched, spares reading the remaining users.
+   *
+   * @param descending Whether to stream the users from the highest ID down.
+   * @return The users in ID order.
+   */
+  Stream<User> streamAll(boolean descending);
+
+  /**
+   * Returns the version of the repository as a whole. It changes after every insert, replace or
+   * delete, once the change is visible to readers, so two reads started at the same version see
+   * the same data unless they overlap a change.
+   */
+  long version();
+
+  /**
+   * Returns whether the repository bounds the heap it uses regardless of the number of users.
+   * Structures growing with the number of users, such as the query indexes, must not be built on
+   * top of such a repository.
+   */
+  default boolean isHeapBounded() {
+    return false;
+  }
+
+}
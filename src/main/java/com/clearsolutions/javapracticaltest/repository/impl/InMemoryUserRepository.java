@@ -0,0 +1,117 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * In-memory user repository with snapshot-isolated, non-blocking reads.
+ *
+ * <p>Readers work on an immutable {@link UserSnapshot}, so long scans never block writers and
+ * never observe a change in the middle of the scan. Writers build a new version and publish it
+ * with a compare-and-set on the current version, retrying if another writer won the race. A new
+ * user takes the next ID of the version it is published on, so users become visible in ID order.
+ */
+@Repository
+@ConditionalOnProperty(name = "user.repository.type", havingValue = "memory",
+    matchIfMissing = true)
+public class InMemoryUserRepository implements UserRepository {
+
+  private final AtomicReference<UserSnapshot> current = new AtomicReference<>(UserSnapshot.EMPTY);
+
+  /**
+   * Returns the latest published version of the repository.
+   */
+  public UserSnapshot snapshot() {
+    return current.get();
+  }
+
+  @Override
+  public Optional<User> findById(long id) {
+    return snapshot().findById(id);
+  }
+
+  @Override
+  public User insert(User user) {
+    user.setVersion(1L);
+    while (true) {
+      UserSnapshot snapshot = current.get();
+      user.setId(snapshot.nextId());
+      if (current.compareAndSet(snapshot, snapshot.with(user))) {
+        return user;
+      }
+    }
+  }
+
+  @Override
+  public boolean replace(User expected, User replacement) {
+    replacement.setId(expected.getId());
+    replacement.setVersion(expected.getVersion() + 1);
+    while (true) {
+      UserSnapshot snapshot = current.get();
+      User stored = snapshot.findById(expected.getId()).orElse(null);
+      if (stored == null || stored.getVersion() != expected.getVersion()) {
+        return false;
+      }
+      if (current.compareAndSet(snapshot, snapshot.with(replacement))) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public boolean delete(long id) {
+    while (true) {
+      UserSnapshot snapshot = current.get();
+      UserSnapshot updated = snapshot.without(id);
+      if (updated == snapshot) {
+        return false;
+      }
+      if (current.compareAndSet(snapshot, updated)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public List<User> findByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
+    return snapshot().stream()
+        .filter(user -> isBornWithin(user, fromDate, toDate))
+        .toList();
+  }
+
+  @Override
+  public List<ProjectedUser> findByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      UserProjection projection) {
+    return snapshot().stream()
+        .filter(user -> isBornWithin(user, fromDate, toDate))
+        .map(projection::project)
+        .toList();
+  }
+
+  @Override
+  public Stream<User> streamAll(boolean descending) {
+    if (!descending) {
+      return snapshot().stream();
+    }
+    return snapshot().stream().toList().reversed().stream();
+  }
+
+  @Override
+  public long version() {
+    return snapshot().version();
+  }
+
+  private static boolean isBornWithin(User user, LocalDate fromDate, LocalDate toDate) {
+    return !user.getBirthDate().isBefore(fromDate) && !user.getBirthDate().isAfter(toDate);
+  }
+
+}
@@ -0,0 +1,451 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import com.clearsolutions.javapracticaltest.exception.FieldTooLongException;
+import com.clearsolutions.javapracticaltest.exception.WriteBacklogFullException;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserField;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * User repository backed by an embedded relational database.
+ *
+ * <p>Changes are written behind: they are kept as pending changes in memory and flushed to the
+ * database in JDBC batches, either when enough of them have accumulated or when the flush interval
+ * elapses. Reads merge the pending changes over the database state, so every change is visible as
+ * soon as the mutating call returns.
+ *
+ * <p>Users whose strings do not fit the columns are rejected before they are acknowledged. If the
+ * database still rejects a batch, its changes are written one by one, and a change the database
+ * rejects on its own is logged and dropped, so it cannot hold the rest of the queue back.
+ *
+ * <p>The pending changes are bounded. A writer finding the maximum reached flushes them itself,
+ * waiting for a flush in progress, and its change is rejected if the database still fails to take
+ * them, so an unavailable database does not let the pending changes grow until the heap runs out.
+ */
+@Repository
+@ConditionalOnProperty(name = "user.repository.type", havingValue = "jdbc")
+@EnableConfigurationProperties(JdbcUserRepositoryProperties.class)
+public class JdbcUserRepository implements UserRepository {
+
+  private static final Logger logger = LogManager.getLogger(JdbcUserRepository.class);
+
+  private static final String CREATE_TABLE = """
+      CREATE TABLE IF NOT EXISTS users (
+        id BIGINT PRIMARY KEY,
+        email VARCHAR(255) NOT NULL,
+        first_name VARCHAR(255) NOT NULL,
+        last_name VARCHAR(255) NOT NULL,
+        birth_date DATE NOT NULL,
+        address VARCHAR(1024),
+        phone_number VARCHAR(255),
+        version BIGINT NOT NULL
+      )""";
+
+  private static final UserField[] STRING_FIELDS = {UserField.EMAIL, UserField.FIRST_NAME,
+      UserField.LAST_NAME, UserField.ADDRESS, UserField.PHONE_NUMBER};
+
+  private static final int[] STRING_WIDTHS = {255, 255, 255, 1024, 255};
+
+  private static final String CREATE_BIRTH_DATE_INDEX =
+      "CREATE INDEX IF NOT EXISTS users_birth_date_idx ON users (birth_date)";
+
+  private static final String COLUMNS =
+      "id, email, first_name, last_name, birth_date, address, phone_number, version";
+
+  private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM users WHERE id = ?";
+
+  private static final String BY_BIRTH_DATE_RANGE =
+      " FROM users WHERE birth_date BETWEEN ? AND ?";
+
+  private static final String SELECT_BY_BIRTH_DATE_RANGE = "SELECT " + COLUMNS
+      + BY_BIRTH_DATE_RANGE;
+
+  private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM users";
+
+  private static final int ID_BLOCK_SIZE = 1000;
+
+  private static final String CREATE_ID_SEQUENCE =
+      "CREATE SEQUENCE IF NOT EXISTS users_id_seq START WITH 1 INCREMENT BY " + ID_BLOCK_SIZE;
+
+  private static final String SELECT_NEXT_ID_BLOCK = "SELECT NEXT VALUE FOR users_id_seq";
+
+  private static final String UPSERT = "MERGE INTO users (" + COLUMNS
+      + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String DELETE = "DELETE FROM users WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final int maxPending;
+
+  private final Map<Long, PendingChange> pending = new ConcurrentHashMap<>();
+
+  private final Lock mutationLock = new ReentrantLock();
+
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+  private final AtomicLong version = new AtomicLong();
+
+  private final ScheduledExecutorService flusher;
+
+  private final Lock idLock = new ReentrantLock();
+
+  private long nextId;
+
+  private long idLimit;
+
+  /**
+   * Creates the repository, its table and index if they do not exist yet, and starts flushing
+   * pending changes periodically.
+   *
+   * @param dataSource The pooled data source of the database.
+   * @param properties The write-behind batching settings.
+   */
+  public JdbcUserRepository(DataSource dataSource, JdbcUserRepositoryProperties properties) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate =
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.batchSize = properties.batchSize();
+    this.maxPending = properties.maxPending();
+    jdbcTemplate.execute(CREATE_TABLE);
+    jdbcTemplate.execute(CREATE_BIRTH_DATE_INDEX);
+    jdbcTemplate.execute(CREATE_ID_SEQUENCE);
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "user-repository-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = properties.flushInterval().toMillis();
+    flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Optional<User> findById(long id) {
+    PendingChange change = pending.get(id);
+    if (change != null) {
+      return Optional.ofNullable(change.user());
+    }
+    return jdbcTemplate.query(SELECT_BY_ID, this::mapUser, id).stream().findFirst();
+  }
+
+  @Override
+  public User insert(User user) {
+    checkWidths(user);
+    reservePending(-1);
+    user.setId(allocateId());
+    user.setVersion(1L);
+    record(new PendingChange(user.getId(), user));
+    return user;
+  }
+
+  @Override
+  public boolean replace(User expected, User replacement) {
+    checkWidths(replacement);
+    replacement.setId(expected.getId());
+    replacement.setVersion(expected.getVersion() + 1);
+    mutationLock.lock();
+    try {
+      User stored = findById(expected.getId()).orElse(null);
+      if (stored == null || stored.getVersion() != expected.getVersion()) {
+        return false;
+      }
+      reservePending(replacement.getId());
+      record(new PendingChange(replacement.getId(), replacement));
+      return true;
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean delete(long id) {
+    mutationLock.lock();
+    try {
+      if (findById(id).isEmpty()) {
+        return false;
+      }
+      reservePending(id);
+      record(new PendingChange(id, null));
+      return true;
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  @Override
+  public List<User> findByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
+    return query(SELECT_BY_BIRTH_DATE_RANGE, this::mapUser, user -> user,
+        user -> isBornWithin(user, fromDate, toDate), fromDate, toDate);
+  }
+
+  @Override
+  public List<ProjectedUser> findByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      UserProjection projection) {
+    String columns = Stream.concat(Stream.of(UserField.ID), projection.fields().stream())
+        .distinct()
+        .map(JdbcUserRepository::columnOf)
+        .collect(Collectors.joining(", "));
+    return query("SELECT " + columns + BY_BIRTH_DATE_RANGE,
+        (resultSet, rowNum) -> mapProjectedUser(resultSet, projection), projection::project,
+        user -> isBornWithin(user, fromDate, toDate), fromDate, toDate);
+  }
+
+  @Override
+  public Stream<User> streamAll(boolean descending) {
+    List<User> users = query(SELECT_ALL, this::mapUser, user -> user, user -> true);
+    return (descending ? users.reversed() : users).stream();
+  }
+
+  @Override
+  public long version() {
+    return version.get();
+  }
+
+  /**
+   * Writes all pending changes to the database in a single transaction. If the database rejects
+   * the batch, the changes are written one at a time and the ones it rejects are dropped.
+   */
+  public synchronized void flush() {
+    flushScheduled.set(false);
+    List<PendingChange> changes = new ArrayList<>(pending.values());
+    if (changes.isEmpty()) {
+      return;
+    }
+    try {
+      write(changes);
+    } catch (DataIntegrityViolationException e) {
+      logger.warn("Database rejected a batch of {} user changes, writing them one by one: {}",
+          changes.size(), e.getMessage());
+      changes.forEach(this::writeIsolated);
+      return;
+    }
+    changes.forEach(change -> pending.remove(change.id(), change));
+  }
+
+  /**
+   * Stops the periodic flushing and writes the remaining pending changes.
+   */
+  @PreDestroy
+  public void close() {
+    flusher.shutdown();
+    flush();
+  }
+
+  private void writeIsolated(PendingChange change) {
+    try {
+      write(List.of(change));
+    } catch (DataIntegrityViolationException e) {
+      logger.error("Dropping the change of user {} rejected by the database: {}", change.id(),
+          e.getMessage(), e);
+    }
+    pending.remove(change.id(), change);
+  }
+
+  private void write(List<PendingChange> changes) {
+    List<PendingChange> upserts = changes.stream().filter(change -> change.user() != null)
+        .toList();
+    List<PendingChange> deletes = changes.stream().filter(change -> change.user() == null)
+        .toList();
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.batchUpdate(UPSERT, upserts, batchSize,
+          (statement, change) -> bindUser(statement, change.user()));
+      jdbcTemplate.batchUpdate(DELETE, deletes, batchSize,
+          (statement, change) -> statement.setLong(1, change.id()));
+    });
+  }
+
+  /**
+   * Hands out IDs from blocks reserved in the database sequence, so IDs are never reused, even
+   * after a restart, while only one in every {@value #ID_BLOCK_SIZE} inserts touches the database.
+   */
+  private long allocateId() {
+    idLock.lock();
+    try {
+      if (nextId == idLimit) {
+        nextId = jdbcTemplate.queryForObject(SELECT_NEXT_ID_BLOCK, Long.class);
+        idLimit = nextId + ID_BLOCK_SIZE;
+      }
+      return nextId++;
+    } finally {
+      idLock.unlock();
+    }
+  }
+
+  /**
+   * Rejects a user that could be acknowledged but never written, as one of its strings is longer
+   * than its column.
+   */
+  private static void checkWidths(User user) {
+    for (int i = 0; i < STRING_FIELDS.length; i++) {
+      String value = (String) STRING_FIELDS[i].valueOf(user);
+      if (value != null && value.length() > STRING_WIDTHS[i]) {
+        throw new FieldTooLongException("The " + columnOf(STRING_FIELDS[i])
+            + " of a user must not be longer than " + STRING_WIDTHS[i] + " characters.");
+      }
+    }
+  }
+
+  /**
+   * Makes room for the change of a user unless it replaces a change already pending. Once the
+   * maximum is reached, the pending changes are flushed by the caller; if the database does not
+   * take them, the change is rejected.
+   *
+   * @param id The ID of the changed user, or a negative number for a new user.
+   */
+  private void reservePending(long id) {
+    if (pending.size() < maxPending || pending.containsKey(id)) {
+      return;
+    }
+    flushQuietly();
+    if (pending.size() >= maxPending) {
+      throw new WriteBacklogFullException("Too many user changes are waiting for the database."
+          + " Please try again later.");
+    }
+  }
+
+  private void record(PendingChange change) {
+    pending.put(change.id(), change);
+    version.incrementAndGet();
+    if (pending.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+      flusher.execute(this::flushQuietly);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      logger.error("Failed to flush pending user changes: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Runs a query and merges its rows with the pending changes, so the result reflects every
+   * change made so far. The query must select the {@code id} column.
+   *
+   * @param sql       The query to run.
+   * @param rowMapper Maps a row of the query to a result.
+   * @param mapper    Maps a pending user to a result.
+   * @param filter    The condition of the query, applied to pending users.
+   * @param args      The arguments of the query.
+   * @return The merged results ordered by ID.
+   */
+  private <T> List<T> query(String sql, RowMapper<T> rowMapper, Function<User, T> mapper,
+      Predicate<User> filter, Object... args) {
+    Map<Long, PendingChange> overlay = Map.copyOf(pending);
+    Map<Long, T> merged = new TreeMap<>();
+    jdbcTemplate.query(sql, (RowCallbackHandler) resultSet -> {
+      long id = resultSet.getLong("id");
+      if (!overlay.containsKey(id)) {
+        merged.put(id, rowMapper.mapRow(resultSet, 0));
+      }
+    }, args);
+    overlay.values().stream()
+        .map(PendingChange::user)
+        .filter(user -> user != null && filter.test(user))
+        .forEach(user -> merged.put(user.getId(), mapper.apply(user)));
+    return new ArrayList<>(merged.values());
+  }
+
+  private static boolean isBornWithin(User user, LocalDate fromDate, LocalDate toDate) {
+    return !user.getBirthDate().isBefore(fromDate) && !user.getBirthDate().isAfter(toDate);
+  }
+
+  private User mapUser(ResultSet resultSet, int rowNum) throws SQLException {
+    return User.builder()
+        .id(resultSet.getLong("id"))
+        .email(resultSet.getString("email"))
+        .firstName(resultSet.getString("first_name"))
+        .lastName(resultSet.getString("last_name"))
+        .birthDate(resultSet.getObject("birth_date", LocalDate.class))
+        .address(resultSet.getString("address"))
+        .phoneNumber(resultSet.getString("phone_number"))
+        .version(resultSet.getLong("version"))
+        .build();
+  }
+
+  private static ProjectedUser mapProjectedUser(ResultSet resultSet, UserProjection projection)
+      throws SQLException {
+    List<UserField> fields = projection.fields();
+    Object[] values = new Object[fields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = switch (fields.get(i)) {
+        case ID -> resultSet.getLong("id");
+        case BIRTH_DATE -> resultSet.getObject("birth_date", LocalDate.class);
+        default -> resultSet.getString(columnOf(fields.get(i)));
+      };
+    }
+    return new ProjectedUser(projection, values);
+  }
+
+  private static String columnOf(UserField field) {
+    return switch (field) {
+      case ID -> "id";
+      case EMAIL -> "email";
+      case FIRST_NAME -> "first_name";
+      case LAST_NAME -> "last_name";
+      case BIRTH_DATE -> "birth_date";
+      case ADDRESS -> "address";
+      case PHONE_NUMBER -> "phone_number";
+    };
+  }
+
+  private static void bindUser(PreparedStatement statement, User user) throws SQLException {
+    statement.setLong(1, user.getId());
+    statement.setString(2, user.getEmail());
+    statement.setString(3, user.getFirstName());
+    statement.setString(4, user.getLastName());
+    statement.setObject(5, user.getBirthDate());
+    statement.setString(6, user.getAddress());
+    statement.setString(7, user.getPhoneNumber());
+    statement.setLong(8, user.getVersion());
+  }
+
+  /**
+   * A change not yet written to the database; a {@code null} user marks a deletion.
+   */
+  private record PendingChange(long id, User user) {
+
+  }
+
+}
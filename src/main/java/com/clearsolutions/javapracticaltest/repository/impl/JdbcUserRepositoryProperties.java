@@ -0,0 +1,18 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the write-behind batching of the JDBC user repository.
+ *
+ * @param batchSize     The number of pending changes that triggers an immediate flush.
+ * @param flushInterval The maximum time a change stays pending before it is flushed.
+ * @param maxPending    The number of pending changes beyond which writers flush them themselves
+ *                      and are rejected while the database does not take them.
+ */
+@ConfigurationProperties(prefix = "user.repository.jdbc")
+public record JdbcUserRepositoryProperties(int batchSize, Duration flushInterval,
+                                           int maxPending) {
+
+}
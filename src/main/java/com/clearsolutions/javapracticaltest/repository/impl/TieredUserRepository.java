@@ -0,0 +1,366 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Repository;
+
+/**
+ * User repository keeping only recently used users on the heap.
+ *
+ * <p>Every user is written through to a memory-mapped {@link UserRecordFile}, the cold tier. The
+ * most recently accessed users are also kept decoded in a bounded least-recently-used cache, the
+ * hot tier; a lookup missing the cache pages the user in from the file. Range searches and full
+ * scans read the file slot by slot and do not pollute the cache. The heap footprint is therefore
+ * bounded by the cache size, apart from the rare users too large for a fixed-width record, which
+ * stay on the heap. For the same reason the repository reports itself as heap bounded, so no
+ * query indexes are built on it.
+ *
+ * <p>Cache hits and misses are counted in {@code user.repository.cache.requests} and page-in
+ * latency is recorded in {@code user.repository.page.in}.
+ */
+@Repository
+@ConditionalOnProperty(name = "user.repository.type", havingValue = "tiered")
+@EnableConfigurationProperties(TieredUserRepositoryProperties.class)
+public class TieredUserRepository implements UserRepository {
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final UserRecordFile file;
+
+  private final Map<Long, User> cache;
+
+  private final Lock cacheLock = new ReentrantLock();
+
+  private final Map<Long, User> oversized = new ConcurrentHashMap<>();
+
+  private final StampedLock[] locks = new StampedLock[LOCK_STRIPES];
+
+  private final AtomicLong nextId = new AtomicLong(1L);
+
+  private final AtomicLong version = new AtomicLong();
+
+  private final Counter cacheHits;
+
+  private final Counter cacheMisses;
+
+  private final Timer pageIn;
+
+  /**
+   * Creates the repository on an empty record file.
+   *
+   * @param properties    The record file and cache settings.
+   * @param meterRegistry The registry to publish the cache metrics to.
+   */
+  public TieredUserRepository(TieredUserRepositoryProperties properties,
+      MeterRegistry meterRegistry) {
+    this.file = new UserRecordFile(properties.file(), properties.recordsPerRegion());
+    int cacheSize = properties.cacheSize();
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, User> eldest) {
+        return size() > cacheSize;
+      }
+    };
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new StampedLock();
+    }
+    this.cacheHits = Counter.builder("user.repository.cache.requests")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.cacheMisses = Counter.builder("user.repository.cache.requests")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    this.pageIn = Timer.builder("user.repository.page.in")
+        .description("Time to read a user missing the heap cache from the record file")
+        .register(meterRegistry);
+    Gauge.builder("user.repository.cache.size", this, TieredUserRepository::cacheSize)
+        .register(meterRegistry);
+    Gauge.builder("user.repository.oversized.users", oversized, Map::size)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Optional<User> findById(long id) {
+    if (id < 1 || id >= nextId.get()) {
+      return Optional.empty();
+    }
+    User cached = cached(id);
+    if (cached != null) {
+      cacheHits.increment();
+      return Optional.of(cached);
+    }
+    cacheMisses.increment();
+    StampedLock lock = lockOf(id);
+    long stamp = lock.readLock();
+    try {
+      long start = System.nanoTime();
+      User user = load(id - 1);
+      if (user != null) {
+        cache(user);
+      }
+      pageIn.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return Optional.ofNullable(user);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Reads the user straight from the file, leaving the cache and its statistics untouched.
+   */
+  @Override
+  public Optional<User> findByIdWithoutCaching(long id) {
+    if (id < 1 || id >= nextId.get()) {
+      return Optional.empty();
+    }
+    StampedLock lock = lockOf(id);
+    long stamp = lock.readLock();
+    try {
+      return Optional.ofNullable(load(id - 1));
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public User insert(User user) {
+    user.setId(nextId.getAndIncrement());
+    user.setVersion(1L);
+    StampedLock lock = lockOf(user.getId());
+    long stamp = lock.writeLock();
+    try {
+      store(user);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    return user;
+  }
+
+  @Override
+  public boolean replace(User expected, User replacement) {
+    replacement.setId(expected.getId());
+    replacement.setVersion(expected.getVersion() + 1);
+    long slot = expected.getId() - 1;
+    StampedLock lock = lockOf(expected.getId());
+    long stamp = lock.writeLock();
+    try {
+      if (file.state(slot) == UserRecordFile.EMPTY
+          || file.version(slot) != expected.getVersion()) {
+        return false;
+      }
+      store(replacement);
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean delete(long id) {
+    if (id < 1) {
+      return false;
+    }
+    StampedLock lock = lockOf(id);
+    long stamp = lock.writeLock();
+    try {
+      if (file.state(id - 1) == UserRecordFile.EMPTY) {
+        return false;
+      }
+      file.clear(id - 1);
+      oversized.remove(id);
+      cacheLock.lock();
+      try {
+        cache.remove(id);
+      } finally {
+        cacheLock.unlock();
+      }
+      version.incrementAndGet();
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public List<User> findByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
+    return scan(birthDateRange(fromDate, toDate), this::load, false).toList();
+  }
+
+  @Override
+  public List<ProjectedUser> findByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      UserProjection projection) {
+    return scan(birthDateRange(fromDate, toDate), slot -> project(slot, projection), false)
+        .toList();
+  }
+
+  /**
+   * Streams the users straight from the file, one slot at a time, leaving the cache untouched.
+   */
+  @Override
+  public Stream<User> streamAll(boolean descending) {
+    return scan(epochDay -> true, this::load, descending);
+  }
+
+  @Override
+  public long version() {
+    return version.get();
+  }
+
+  @Override
+  public boolean isHeapBounded() {
+    return true;
+  }
+
+  /**
+   * Closes the record file.
+   */
+  @PreDestroy
+  public void close() {
+    file.close();
+  }
+
+  int cacheSize() {
+    cacheLock.lock();
+    try {
+      return cache.size();
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * Streams the users of all slots whose birthdate matches, in slot order, straight from the file.
+   * Each slot is read only when the stream reaches it, so a scan holds no more users on the heap
+   * than its consumer keeps.
+   */
+  private <T> Stream<T> scan(LongPredicate birthDateFilter, SlotReader<T> reader,
+      boolean descending) {
+    long end = Math.min(nextId.get() - 1, file.capacity());
+    return LongStream.range(0, end)
+        .map(i -> descending ? end - 1 - i : i)
+        .mapToObj(slot -> read(slot, birthDateFilter, reader))
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * Reads a slot if its birthdate matches, {@code null} otherwise. The birthdate is checked under
+   * an optimistic read; only a matching slot is locked and read.
+   */
+  private <T> T read(long slot, LongPredicate birthDateFilter, SlotReader<T> reader) {
+    StampedLock lock = lockOf(slot + 1);
+    long stamp = lock.tryOptimisticRead();
+    boolean candidate = matches(slot, birthDateFilter);
+    if (lock.validate(stamp) && !candidate) {
+      return null;
+    }
+    stamp = lock.readLock();
+    try {
+      return matches(slot, birthDateFilter) ? reader.read(slot) : null;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private boolean matches(long slot, LongPredicate birthDateFilter) {
+    return file.state(slot) != UserRecordFile.EMPTY
+        && birthDateFilter.test(file.birthEpochDay(slot));
+  }
+
+  /**
+   * Writes a user to the file and the cache. The caller holds the write lock of the user.
+   */
+  private void store(User user) {
+    if (file.write(user) == UserRecordFile.OVERSIZED) {
+      oversized.put(user.getId(), user);
+    } else {
+      oversized.remove(user.getId());
+    }
+    cache(user);
+    version.incrementAndGet();
+  }
+
+  /**
+   * Reads the user of a slot. The caller holds the lock of the user.
+   */
+  private User load(long slot) {
+    return switch (file.state(slot)) {
+      case UserRecordFile.STORED -> file.read(slot);
+      case UserRecordFile.OVERSIZED -> oversized.get(slot + 1);
+      default -> null;
+    };
+  }
+
+  private ProjectedUser project(long slot, UserProjection projection) {
+    if (file.state(slot) == UserRecordFile.OVERSIZED) {
+      return projection.project(oversized.get(slot + 1));
+    }
+    Object[] values = new Object[projection.fields().size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = file.field(slot, projection.fields().get(i));
+    }
+    return new ProjectedUser(projection, values);
+  }
+
+  private User cached(long id) {
+    cacheLock.lock();
+    try {
+      return cache.get(id);
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  private void cache(User user) {
+    cacheLock.lock();
+    try {
+      cache.put(user.getId(), user);
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  private StampedLock lockOf(long id) {
+    return locks[(int) (id & (LOCK_STRIPES - 1))];
+  }
+
+  private static LongPredicate birthDateRange(LocalDate fromDate, LocalDate toDate) {
+    long from = fromDate.toEpochDay();
+    long to = toDate.toEpochDay();
+    return epochDay -> epochDay >= from && epochDay <= to;
+  }
+
+  /**
+   * Reads a result from a slot of the record file.
+   */
+  @FunctionalInterface
+  private interface SlotReader<T> {
+
+    T read(long slot);
+
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the tiered user repository.
+ *
+ * @param file             The record file cold users are paged out to; a temporary file of the
+ *                         process when not set.
+ * @param cacheSize        The maximum number of users kept on the heap.
+ * @param recordsPerRegion The number of records mapped at once; the file grows by this many
+ *                         records at a time.
+ */
+@ConfigurationProperties(prefix = "user.repository.tiered")
+public record TieredUserRepositoryProperties(Path file, int cacheSize, int recordsPerRegion) {
+
+}
@@ -0,0 +1,322 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserField;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A file of fixed-width user records, accessed through memory-mapped regions.
+ *
+ * <p>The record of the user with ID {@code n} is stored in slot {@code n - 1}, so a record is
+ * found by arithmetic alone. Each record starts with its state, version and birthdate, followed
+ * by the strings of the user, each stored as a length and a fixed number of UTF-8 bytes. A user
+ * whose strings do not fit is stored as {@link #OVERSIZED}: only the header is written and the
+ * caller has to keep the user elsewhere.
+ *
+ * <p>The file is scratch space of the running application, like swap: it is locked and truncated
+ * when it is opened, and opening a file another instance holds fails instead of wiping it. Without
+ * a configured path every process gets a temporary file of its own, deleted when it is closed. The
+ * file does not synchronize access to a record; callers must not read a slot while it is being
+ * written.
+ */
+class UserRecordFile implements AutoCloseable {
+
+  /**
+   * The state of a slot that holds no user.
+   */
+  static final byte EMPTY = 0;
+
+  /**
+   * The state of a slot that holds a complete user.
+   */
+  static final byte STORED = 1;
+
+  /**
+   * The state of a slot that holds only the header of a user.
+   */
+  static final byte OVERSIZED = 2;
+
+  private static final int STATE_OFFSET = 0;
+
+  private static final int VERSION_OFFSET = 8;
+
+  private static final int BIRTH_DATE_OFFSET = 16;
+
+  private static final int STRINGS_OFFSET = 24;
+
+  private static final long NO_BIRTH_DATE = Long.MIN_VALUE;
+
+  private static final UserField[] STRING_FIELDS = {
+      UserField.EMAIL, UserField.FIRST_NAME, UserField.LAST_NAME, UserField.ADDRESS,
+      UserField.PHONE_NUMBER};
+
+  private static final int[] STRING_WIDTHS = {254, 100, 100, 256, 32};
+
+  private static final int[] STRING_OFFSETS = new int[STRING_WIDTHS.length];
+
+  static final int RECORD_SIZE;
+
+  static {
+    int offset = STRINGS_OFFSET;
+    for (int i = 0; i < STRING_WIDTHS.length; i++) {
+      STRING_OFFSETS[i] = offset;
+      offset += Short.BYTES + STRING_WIDTHS[i];
+    }
+    RECORD_SIZE = offset;
+  }
+
+  private final FileChannel channel;
+
+  private final int recordsPerRegion;
+
+  private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+  /**
+   * Opens the record file, creating it if it does not exist and truncating it if it does.
+   *
+   * @param path             The path of the file, or {@code null} for a temporary file that is
+   *                         deleted when it is closed.
+   * @param recordsPerRegion The number of records mapped at once; the file grows by this many
+   *                         records at a time.
+   * @throws IllegalStateException If the file is already used by another instance.
+   */
+  UserRecordFile(Path path, int recordsPerRegion) {
+    this.recordsPerRegion = recordsPerRegion;
+    try {
+      this.channel = path == null ? openTemporary() : open(path);
+      lockAndTruncate(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of slots currently backed by the file.
+   */
+  long capacity() {
+    return (long) regions.length * recordsPerRegion;
+  }
+
+  /**
+   * Returns the state of a slot, {@link #EMPTY} for slots beyond the end of the file.
+   */
+  byte state(long slot) {
+    if (slot >= capacity()) {
+      return EMPTY;
+    }
+    return region(slot).get(offset(slot) + STATE_OFFSET);
+  }
+
+  /**
+   * Returns the version of the user in a non-empty slot.
+   */
+  long version(long slot) {
+    return region(slot).getLong(offset(slot) + VERSION_OFFSET);
+  }
+
+  /**
+   * Returns the birthdate of the user in a non-empty slot.
+   */
+  LocalDate birthDate(long slot) {
+    long epochDay = birthEpochDay(slot);
+    return epochDay == NO_BIRTH_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+
+  /**
+   * Returns the birthdate of the user in a non-empty slot as an epoch day, {@link Long#MIN_VALUE}
+   * if the user has no birthdate.
+   */
+  long birthEpochDay(long slot) {
+    return region(slot).getLong(offset(slot) + BIRTH_DATE_OFFSET);
+  }
+
+  /**
+   * Reads a single field of the user in a {@link #STORED} slot.
+   */
+  Object field(long slot, UserField field) {
+    return switch (field) {
+      case ID -> slot + 1;
+      case BIRTH_DATE -> birthDate(slot);
+      default -> readString(region(slot), offset(slot), stringIndex(field));
+    };
+  }
+
+  /**
+   * Reads the user in a {@link #STORED} slot.
+   */
+  User read(long slot) {
+    ByteBuffer region = region(slot);
+    int offset = offset(slot);
+    return User.builder()
+        .id(slot + 1)
+        .version(region.getLong(offset + VERSION_OFFSET))
+        .birthDate(birthDate(slot))
+        .email(readString(region, offset, 0))
+        .firstName(readString(region, offset, 1))
+        .lastName(readString(region, offset, 2))
+        .address(readString(region, offset, 3))
+        .phoneNumber(readString(region, offset, 4))
+        .build();
+  }
+
+  /**
+   * Writes a user into the slot of its ID, growing the file if needed.
+   *
+   * @param user The user to write.
+   * @return {@link #STORED} if the whole user was written, {@link #OVERSIZED} if only its header
+   *     was.
+   */
+  byte write(User user) {
+    long slot = user.getId() - 1;
+    ensureCapacity(slot);
+    byte[][] strings = new byte[STRING_FIELDS.length][];
+    byte state = STORED;
+    for (int i = 0; i < strings.length; i++) {
+      String value = (String) STRING_FIELDS[i].valueOf(user);
+      strings[i] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+      if (strings[i] != null && strings[i].length > STRING_WIDTHS[i]) {
+        state = OVERSIZED;
+      }
+    }
+    ByteBuffer region = region(slot);
+    int offset = offset(slot);
+    region.putLong(offset + VERSION_OFFSET, user.getVersion());
+    region.putLong(offset + BIRTH_DATE_OFFSET,
+        user.getBirthDate() == null ? NO_BIRTH_DATE : user.getBirthDate().toEpochDay());
+    if (state == STORED) {
+      for (int i = 0; i < strings.length; i++) {
+        writeString(region, offset, i, strings[i]);
+      }
+    }
+    region.put(offset + STATE_OFFSET, state);
+    return state;
+  }
+
+  /**
+   * Marks a slot as empty.
+   */
+  void clear(long slot) {
+    if (slot < capacity()) {
+      region(slot).put(offset(slot) + STATE_OFFSET, EMPTY);
+    }
+  }
+
+  /**
+   * Closes the file. The mapped regions stay valid until they are garbage collected.
+   */
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static FileChannel openTemporary() throws IOException {
+    return FileChannel.open(Files.createTempFile("users", ".dat"), StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+  }
+
+  private static FileChannel open(Path path) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Takes an exclusive lock on the file before emptying it, so an instance never truncates the
+   * file of another one. The lock is released when the channel is closed.
+   */
+  private void lockAndTruncate(Path path) throws IOException {
+    FileLock lock;
+    try {
+      lock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      channel.close();
+      throw new IllegalStateException(
+          "The record file " + path + " is already used by another instance.");
+    }
+    channel.truncate(0);
+  }
+
+  private void ensureCapacity(long slot) {
+    if (slot >= capacity()) {
+      synchronized (this) {
+        while (slot >= capacity()) {
+          growTo(regions.length);
+        }
+      }
+    }
+  }
+
+  private void growTo(int regionIndex) {
+    long regionBytes = (long) recordsPerRegion * RECORD_SIZE;
+    try {
+      MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE,
+          regionIndex * regionBytes, regionBytes);
+      MappedByteBuffer[] grown = Arrays.copyOf(regions, regionIndex + 1);
+      grown[regionIndex] = region;
+      regions = grown;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private ByteBuffer region(long slot) {
+    return regions[(int) (slot / recordsPerRegion)];
+  }
+
+  private int offset(long slot) {
+    return (int) (slot % recordsPerRegion) * RECORD_SIZE;
+  }
+
+  private static int stringIndex(UserField field) {
+    for (int i = 0; i < STRING_FIELDS.length; i++) {
+      if (STRING_FIELDS[i] == field) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Not a string field: " + field);
+  }
+
+  private static String readString(ByteBuffer region, int offset, int index) {
+    int position = offset + STRING_OFFSETS[index];
+    short length = region.getShort(position);
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    region.get(position + Short.BYTES, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(ByteBuffer region, int offset, int index, byte[] bytes) {
+    int position = offset + STRING_OFFSETS[index];
+    if (bytes == null) {
+      region.putShort(position, (short) -1);
+      return;
+    }
+    region.putShort(position, (short) bytes.length);
+    region.put(position + Short.BYTES, bytes);
+  }
+
+}
@@ -0,0 +1,170 @@
+package com.clearsolutions.javapracticaltest.repository.impl;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable version of the in-memory user repository.
+ *
+ * <p>Users are kept in fixed-size segments addressed by their id. Changing a user copies only the
+ * segment holding it and the small array of segment references, so every version shares all
+ * untouched segments with the previous one. Users are ordered by id.
+ */
+public final class UserSnapshot {
+
+  static final UserSnapshot EMPTY = new UserSnapshot(new User[0][], 0, 0L, 1L);
+
+  private static final int SEGMENT_SHIFT = 8;
+
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private final User[][] segments;
+
+  private final int size;
+
+  private final long version;
+
+  private final long nextId;
+
+  private UserSnapshot(User[][] segments, int size, long version, long nextId) {
+    this.segments = segments;
+    this.size = size;
+    this.version = version;
+    this.nextId = nextId;
+  }
+
+  /**
+   * Finds a user by their ID.
+   *
+   * @param id The ID of the user to find.
+   * @return The user with the specified ID, or an empty optional if there is none.
+   */
+  public Optional<User> findById(long id) {
+    User[] segment = segmentOf(id);
+    return Optional.ofNullable(segment != null ? segment[slotOf(id)] : null);
+  }
+
+  /**
+   * Returns all users of this version ordered by id.
+   */
+  public Stream<User> stream() {
+    return StreamSupport.stream(new SegmentSpliterator(), false);
+  }
+
+  /**
+   * Returns the number of users in this version.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of changes published before this version.
+   */
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Returns the ID of the next user added to this version, one past the highest ID ever added.
+   */
+  long nextId() {
+    return nextId;
+  }
+
+  UserSnapshot with(User user) {
+    long id = user.getId();
+    int index = segmentIndexOf(id);
+    User[][] newSegments = Arrays.copyOf(segments, Math.max(segments.length, index + 1));
+    User[] segment = newSegments[index];
+    User[] newSegment = segment != null ? segment.clone() : new User[SEGMENT_SIZE];
+    boolean added = newSegment[slotOf(id)] == null;
+    newSegment[slotOf(id)] = user;
+    newSegments[index] = newSegment;
+    return new UserSnapshot(newSegments, added ? size + 1 : size, version + 1,
+        Math.max(nextId, id + 1));
+  }
+
+  UserSnapshot without(long id) {
+    User[] segment = segmentOf(id);
+    if (segment == null || segment[slotOf(id)] == null) {
+      return this;
+    }
+    User[][] newSegments = segments.clone();
+    User[] newSegment = segment.clone();
+    newSegment[slotOf(id)] = null;
+    newSegments[segmentIndexOf(id)] = newSegment;
+    return new UserSnapshot(newSegments, size - 1, version + 1, nextId);
+  }
+
+  private User[] segmentOf(long id) {
+    int index = segmentIndexOf(id);
+    return index >= 0 && index < segments.length ? segments[index] : null;
+  }
+
+  private static int segmentIndexOf(long id) {
+    return Math.toIntExact(id >>> SEGMENT_SHIFT);
+  }
+
+  private static int slotOf(long id) {
+    return (int) (id & SEGMENT_MASK);
+  }
+
+  /**
+   * Walks the segments directly, skipping empty slots without any per-element stream stages.
+   */
+  private final class SegmentSpliterator extends Spliterators.AbstractSpliterator<User> {
+
+    private int segmentIndex;
+
+    private int slot;
+
+    private SegmentSpliterator() {
+      super(size, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super User> action) {
+      for (; segmentIndex < segments.length; segmentIndex++, slot = 0) {
+        User[] segment = segments[segmentIndex];
+        if (segment == null) {
+          continue;
+        }
+        while (slot < segment.length) {
+          User user = segment[slot++];
+          if (user != null) {
+            action.accept(user);
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super User> action) {
+      while (segmentIndex < segments.length) {
+        User[] segment = segments[segmentIndex];
+        if (segment != null) {
+          for (int i = slot; i < segment.length; i++) {
+            if (segment[i] != null) {
+              action.accept(segment[i]);
+            }
+          }
+        }
+        segmentIndex++;
+        slot = 0;
+      }
+    }
+
+  }
+
+}
@@ -1,9 +1,15 @@
 package com.clearsolutions.javapracticaltest.service;
 
 import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.query.QueryPlan;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
 import com.github.fge.jsonpatch.JsonPatch;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface UserService {
 
@@ -15,6 +21,18 @@ public interface UserService {
 
   void delete(long id);
 
+  EncodedJson findEncodedUserById(long id);
+
   List<UserDto> searchUsersByBirthDateRange(LocalDate fromDate, LocalDate toDate);
 
+  CompletableFuture<EncodedJson> searchEncodedUsersByBirthDateRange(LocalDate fromDate,
+      LocalDate toDate);
+
+  List<ProjectedUser> searchUsersByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      UserProjection projection);
+
+  EncodedJson queryEncodedUsers(UserQuery query);
+
+  QueryPlan explainQuery(UserQuery query);
+
 }
\ No newline at end of file
@@ -1,15 +1,28 @@
 package com.clearsolutions.javapracticaltest.service.impl;
 
+import com.clearsolutions.javapracticaltest.coalescing.RequestCoalescer;
 import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.exception.InvalidQueryException;
 import com.clearsolutions.javapracticaltest.exception.UserNotFoundException;
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCache;
 import com.clearsolutions.javapracticaltest.mapper.DataMapper;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
 import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.query.QueryPlan;
+import com.clearsolutions.javapracticaltest.query.UserIndexes;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import com.clearsolutions.javapracticaltest.query.UserQueryEngine;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
 import com.clearsolutions.javapracticaltest.service.UserService;
 import com.clearsolutions.javapracticaltest.service.ValidationService;
 import com.clearsolutions.javapracticaltest.util.PatchUtil;
 import com.github.fge.jsonpatch.JsonPatch;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -26,9 +39,15 @@ public class UserServiceImpl implements UserService {
 
   private final PatchUtil patchUtil;
 
-  private final List<User> users;
+  private final UserRepository userRepository;
 
-  private long nextId = 1L;
+  private final UserJsonCache userJsonCache;
+
+  private final RequestCoalescer requestCoalescer;
+
+  private final UserIndexes userIndexes;
+
+  private final UserQueryEngine userQueryEngine;
 
   /**
    * Creates a new user.
@@ -38,9 +57,8 @@ public class UserServiceImpl implements UserService {
    */
   public UserDto create(UserDto userDto) {
     validationService.validateUserAge(userDto.getBirthDate());
-    User user = userMapper.toEntity(userDto);
-    user.setId(nextId++);
-    users.add(user);
+    User user = userRepository.insert(userMapper.toEntity(userDto));
+    userIndexes.put(user);
     return userMapper.toDto(user);
   }
 
@@ -52,12 +70,12 @@ public class UserServiceImpl implements UserService {
    * @return the updated UserDto
    */
   public UserDto updatePartially(long id, JsonPatch patchData) {
-    User user = findUserById(id);
-    UserDto userDto = userMapper.toDto(user);
-    UserDto userDtoPatched = patchUtil.applyPatch(patchData, userDto, UserDto.class);
-    validationService.validateDto(userDtoPatched);
-    userMapper.updateEntity(userDtoPatched, user);
-    return userMapper.toDto(user);
+    return applyChanges(id, user -> {
+      UserDto userDto = userMapper.toDto(user);
+      UserDto userDtoPatched = patchUtil.applyPatch(patchData, userDto, UserDto.class);
+      validationService.validateDto(userDtoPatched);
+      return userDtoPatched;
+    });
   }
 
   /**
@@ -68,9 +86,7 @@ public class UserServiceImpl implements UserService {
    * @return the updated UserDto
    */
   public UserDto update(long id, UserDto userDto) {
-    User user = findUserById(id);
-    userMapper.updateEntity(userDto, user);
-    return userMapper.toDto(user);
+    return applyChanges(id, user -> userDto);
   }
 
   /**
@@ -79,7 +95,23 @@ public class UserServiceImpl implements UserService {
    * @param id the id of the user to delete
    */
   public void delete(long id) {
-    users.remove(findUserById(id));
+    if (!userRepository.delete(id)) {
+      throw new UserNotFoundException(id);
+    }
+    userJsonCache.invalidate(id);
+    userIndexes.remove(id);
+  }
+
+  /**
+   * Finds a user by their ID and returns its JSON encoding, reusing the cached encoding if the
+   * user has not changed since it was last encoded.
+   *
+   * @param id the ID of the user to find
+   * @return the encoded user DTO
+   * @throws UserNotFoundException if the user with the given ID is not found
+   */
+  public EncodedJson findEncodedUserById(long id) {
+    return EncodedJson.of(userJsonCache.encode(findUserById(id)));
   }
 
   /**
@@ -91,13 +123,71 @@ public class UserServiceImpl implements UserService {
    */
   public List<UserDto> searchUsersByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
     validationService.validateUserDateRange(fromDate, toDate);
-    return users.stream()
-        .filter(
-            user -> !user.getBirthDate().isBefore(fromDate) && !user.getBirthDate().isAfter(toDate))
+    return userRepository.findByBirthDateRange(fromDate, toDate).stream()
         .map(userMapper::toDto)
         .toList();
   }
 
+  /**
+   * Searches for users within a specified birthdate range and returns them as a JSON array,
+   * reusing the cached encodings of the users that have not changed since they were last encoded.
+   * Identical searches running at the same time against the same repository version share a
+   * single scan.
+   *
+   * @param fromDate the start date of the range to search
+   * @param toDate   the end date of the range to search
+   * @return the future encoded array of user DTOs that fall within the specified birthdate range
+   */
+  public CompletableFuture<EncodedJson> searchEncodedUsersByBirthDateRange(LocalDate fromDate,
+      LocalDate toDate) {
+    validationService.validateUserDateRange(fromDate, toDate);
+    RangeSearch search = new RangeSearch(fromDate, toDate, userRepository.version());
+    return requestCoalescer.execute(search,
+        () -> EncodedJson.arrayOf(userRepository.findByBirthDateRange(fromDate, toDate).stream()
+            .map(userJsonCache::encode)
+            .toList()));
+  }
+
+  /**
+   * Searches for users within a specified birthdate range, reading only the selected fields. The
+   * users are neither mapped to DTOs nor copied in full.
+   *
+   * @param fromDate   the start date of the range to search
+   * @param toDate     the end date of the range to search
+   * @param projection the fields to return
+   * @return a list of projected users that fall within the specified birthdate range
+   */
+  public List<ProjectedUser> searchUsersByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      UserProjection projection) {
+    validationService.validateUserDateRange(fromDate, toDate);
+    return userRepository.findByBirthDateRange(fromDate, toDate, projection);
+  }
+
+  /**
+   * Queries the users matching all the given criteria and returns them as a JSON array, reusing
+   * the cached encodings of the users that have not changed since they were last encoded.
+   *
+   * @param query the criteria, order and limit of the query
+   * @return the encoded array of the matching user DTOs
+   */
+  public EncodedJson queryEncodedUsers(UserQuery query) {
+    validateQuery(query);
+    return EncodedJson.arrayOf(userQueryEngine.execute(query).stream()
+        .map(userJsonCache::encode)
+        .toList());
+  }
+
+  /**
+   * Describes how a query would be executed, without executing it.
+   *
+   * @param query the criteria, order and limit of the query
+   * @return the plan of the query
+   */
+  public QueryPlan explainQuery(UserQuery query) {
+    validateQuery(query);
+    return userQueryEngine.explain(query);
+  }
+
   /**
    * Find a user by their ID.
    *
@@ -106,10 +196,45 @@ public class UserServiceImpl implements UserService {
    * @throws UserNotFoundException If the user with the given ID is not found.
    */
   public User findUserById(Long id) {
-    return users.stream()
-        .filter(user -> id.equals(user.getId()))
-        .findFirst()
+    return userRepository.findById(id)
         .orElseThrow(() -> new UserNotFoundException(id));
   }
 
+  /**
+   * Applies changes to a copy of the user and publishes the copy as the new version of the user.
+   * If the user is changed concurrently, the changes are computed again on the latest version.
+   *
+   * @param id      The ID of the user to change.
+   * @param changes The function computing the new user data from the current user.
+   * @return The updated UserDto.
+   */
+  private UserDto applyChanges(long id, Function<User, UserDto> changes) {
+    while (true) {
+      User user = findUserById(id);
+      User updatedUser = user.toBuilder().build();
+      userMapper.updateEntity(changes.apply(user), updatedUser);
+      if (userRepository.replace(user, updatedUser)) {
+        userJsonCache.invalidate(id);
+        userIndexes.put(updatedUser);
+        return userMapper.toDto(updatedUser);
+      }
+    }
+  }
+
+  private void validateQuery(UserQuery query) {
+    if (query.bornFrom() != null && query.bornTo() != null) {
+      validationService.validateUserDateRange(query.bornFrom(), query.bornTo());
+    }
+    if (query.limit() != null && query.limit() < 1) {
+      throw new InvalidQueryException("Limit must be positive.");
+    }
+  }
+
+  /**
+   * Identifies a birthdate range search and the repository version it reads.
+   */
+  private record RangeSearch(LocalDate fromDate, LocalDate toDate, long version) {
+
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.ratelimit.ClientRateLimiter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead the admission control layer adds to every request, with many threads
+ * hitting either a single hot client or a large population of clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AdmissionControlBenchmark {
+
+  @Param({"1", "1000", "100000"})
+  private int clients;
+
+  private ClientRateLimiter rateLimiter;
+
+  private String[] clientIds;
+
+  @Setup
+  public void setUp() {
+    rateLimiter = new ClientRateLimiter(1_000_000, 1_000_000, 10_000, System::nanoTime);
+    clientIds = new String[clients];
+    for (int i = 0; i < clients; i++) {
+      clientIds[i] = "client-" + i;
+    }
+  }
+
+  @Benchmark
+  public long pointOperation() {
+    return rateLimiter.tryAcquire(randomClient(), 1);
+  }
+
+  @Benchmark
+  public long rangeSearch() {
+    return rateLimiter.tryAcquire(randomClient(), 10);
+  }
+
+  private String randomClient() {
+    return clientIds[ThreadLocalRandom.current().nextInt(clientIds.length)];
+  }
+
+}
@@ -0,0 +1,162 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Compares the snapshot-isolated {@link InMemoryUserRepository} with a list guarded by a
+ * read-write lock while writers and long birthdate range scans run at the same time. The retained
+ * heap size of both stores is printed at the end of every trial.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryUserRepositoryBenchmark {
+
+  private static final LocalDate FROM_DATE = LocalDate.of(1980, 1, 1);
+
+  private static final LocalDate TO_DATE = LocalDate.of(1990, 1, 1);
+
+  @Param({"10000", "100000"})
+  private int users;
+
+  private InMemoryUserRepository userRepository;
+
+  private LockedUserStore lockedUserStore;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    userRepository = new InMemoryUserRepository();
+    lockedUserStore = new LockedUserStore();
+    for (int i = 0; i < users; i++) {
+      userRepository.insert(newUser(i));
+      lockedUserStore.insert(newUser(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void printFootprint() {
+    System.out.printf("%nRetained heap: snapshot repository %d bytes, locked store %d bytes%n",
+        GraphLayout.parseInstance(userRepository).totalSize(),
+        GraphLayout.parseInstance(lockedUserStore).totalSize());
+  }
+
+  @Benchmark
+  @Group("snapshot")
+  @GroupThreads(2)
+  public boolean snapshotWrite() {
+    long id = randomId();
+    User user = userRepository.snapshot().findById(id).orElseThrow();
+    return userRepository.replace(user, user.toBuilder().email("changed" + id).build());
+  }
+
+  @Benchmark
+  @Group("snapshot")
+  @GroupThreads(2)
+  public long snapshotScan() {
+    return userRepository.snapshot().stream()
+        .filter(InMemoryUserRepositoryBenchmark::inRange)
+        .count();
+  }
+
+  @Benchmark
+  @Group("locked")
+  @GroupThreads(2)
+  public boolean lockedWrite() {
+    long id = randomId();
+    return lockedUserStore.replace(id, "changed" + id);
+  }
+
+  @Benchmark
+  @Group("locked")
+  @GroupThreads(2)
+  public long lockedScan() {
+    return lockedUserStore.countInRange();
+  }
+
+  private long randomId() {
+    return ThreadLocalRandom.current().nextLong(1, users + 1);
+  }
+
+  private static boolean inRange(User user) {
+    return !user.getBirthDate().isBefore(FROM_DATE) && !user.getBirthDate().isAfter(TO_DATE);
+  }
+
+  private static User newUser(int i) {
+    return User.builder()
+        .email("user" + i + "@example.com")
+        .firstName("First" + i)
+        .lastName("Last" + i)
+        .birthDate(LocalDate.of(1950, 1, 1).plusDays(i % 20_000))
+        .address("Address " + i)
+        .phoneNumber("+380" + i)
+        .build();
+  }
+
+  /**
+   * The storage approach used before the snapshot repository: a list guarded by a read-write lock.
+   */
+  private static class LockedUserStore {
+
+    private final List<User> users = new ArrayList<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void insert(User user) {
+      lock.writeLock().lock();
+      try {
+        user.setId(users.size() + 1L);
+        users.add(user);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    boolean replace(long id, String email) {
+      lock.writeLock().lock();
+      try {
+        users.get((int) id - 1).setEmail(email);
+        return true;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    long countInRange() {
+      lock.readLock().lock();
+      try {
+        return users.stream().filter(InMemoryUserRepositoryBenchmark::inRange).count();
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,106 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapper;
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapperImpl;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CPU time per result row of a birthdate range search, from reading the repository
+ * to the encoded JSON response, for the full DTO path and for projections of a few or all fields.
+ * The response size per row of every variant is printed at the start of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+  private static final int USERS = 100_000;
+
+  private static final int ROWS = 10_000;
+
+  private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+  private static final LocalDate FROM_DATE = FIRST_BIRTH_DATE;
+
+  private static final LocalDate TO_DATE = FIRST_BIRTH_DATE.plusDays(ROWS / 10 - 1);
+
+  @Param({"id,email", "id,email,firstName,lastName,birthDate,address,phoneNumber"})
+  private String fields;
+
+  private InMemoryUserRepository userRepository;
+
+  private UserMapper userMapper;
+
+  private ObjectMapper objectMapper;
+
+  private UserProjection projection;
+
+  @Setup(Level.Trial)
+  public void setUp() throws JsonProcessingException {
+    userRepository = new InMemoryUserRepository();
+    for (int i = 0; i < USERS; i++) {
+      userRepository.insert(newUser(i));
+    }
+    userMapper = new UserMapperImpl();
+    objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    projection = UserProjection.of(Arrays.asList(fields.split(",")));
+    System.out.printf("%nResponse bytes per row: DTO %d, projection [%s] %d%n",
+        fullDto().length / ROWS, fields, projected().length / ROWS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public byte[] fullDto() throws JsonProcessingException {
+    List<UserDto> users = userRepository.findByBirthDateRange(FROM_DATE, TO_DATE).stream()
+        .map(userMapper::toDto)
+        .toList();
+    return objectMapper.writeValueAsBytes(users);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public byte[] projected() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(
+        userRepository.findByBirthDateRange(FROM_DATE, TO_DATE, projection));
+  }
+
+  private static User newUser(int i) {
+    return User.builder()
+        .email("user" + i + "@example.com")
+        .firstName("First" + i)
+        .lastName("Last" + i)
+        .birthDate(FIRST_BIRTH_DATE.plusDays(i % (USERS / 10)))
+        .address("Some Street " + i + ", Some City")
+        .phoneNumber("+380" + i)
+        .build();
+  }
+
+}
@@ -0,0 +1,109 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.TestAssignmentApplication;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time from launching the application until its first successful request, for every
+ * startup mode given as an argument: {@code jvm}, {@code aot}, {@code cds} and {@code native}.
+ *
+ * <p>The artifacts of a mode have to be built first: {@code mvn package} for {@code jvm},
+ * {@code mvn -Paot package} for {@code aot}, {@code mvn -Pcds package} for {@code cds} and
+ * {@code mvn -Pnative native:compile} for {@code native}. Run it from the project directory:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="jvm aot cds"
+ *     -Dbenchmark.main=com.clearsolutions.javapracticaltest.benchmark.StartupBenchmark
+ * </pre>
+ */
+public class StartupBenchmark {
+
+  private static final int RUNS = 5;
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+  private static final URI PROBE =
+      URI.create("http://localhost:8080/users?fromDate=2000-01-01&toDate=2000-01-02");
+
+  private static final Path TARGET = Path.of("target");
+
+  private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+  public static void main(String[] args) throws Exception {
+    System.out.printf("%-8s %10s %10s %10s%n", "mode", "min, ms", "median, ms", "max, ms");
+    for (String mode : args) {
+      List<String> command = commandFor(mode);
+      long[] millis = new long[RUNS];
+      for (int i = 0; i < RUNS; i++) {
+        millis[i] = timeToFirstRequest(command);
+      }
+      Arrays.sort(millis);
+      System.out.printf("%-8s %10d %10d %10d%n", mode, millis[0], millis[RUNS / 2],
+          millis[RUNS - 1]);
+    }
+  }
+
+  private static List<String> commandFor(String mode) throws IOException {
+    String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    String mainClass = TestAssignmentApplication.class.getName();
+    return switch (mode) {
+      case "jvm" -> List.of(java, "-jar", executableJar());
+      case "aot" -> List.of(java, "-Dspring.aot.enabled=true", "-jar", executableJar());
+      case "cds" -> List.of(java,
+          "-XX:SharedArchiveFile=" + TARGET.resolve("cds/application.jsa"),
+          "-Dspring.aot.enabled=true",
+          "-cp", TARGET.resolve("cds/*") + File.pathSeparator + TARGET.resolve("cds/lib/*"),
+          mainClass);
+      case "native" -> List.of(TARGET.resolve("java-practical-test").toString());
+      default -> throw new IllegalArgumentException("Unknown startup mode: " + mode);
+    };
+  }
+
+  private static String executableJar() throws IOException {
+    try (Stream<Path> files = Files.list(TARGET)) {
+      return files.map(Path::toString)
+          .filter(file -> file.endsWith(".jar"))
+          .findFirst()
+          .orElseThrow(() -> new IllegalStateException("Run mvn package first."));
+    }
+  }
+
+  private static long timeToFirstRequest(List<String> command) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(PROBE).timeout(Duration.ofSeconds(1)).build();
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(command)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.DISCARD)
+        .start();
+    try {
+      while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+        try {
+          if (CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+            return Duration.ofNanos(System.nanoTime() - start).toMillis();
+          }
+        } catch (IOException e) {
+          // The server is not accepting connections yet.
+        }
+        if (!process.isAlive()) {
+          throw new IllegalStateException("Application exited with " + process.exitValue());
+        }
+        Thread.sleep(5);
+      }
+      throw new IllegalStateException("Application did not answer within " + TIMEOUT);
+    } finally {
+      process.destroy();
+      process.waitFor();
+    }
+  }
+
+}
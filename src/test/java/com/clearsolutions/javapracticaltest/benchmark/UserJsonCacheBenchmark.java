@@ -0,0 +1,106 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCache;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCacheProperties;
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapper;
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapperImpl;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Measures the CPU time per result row of writing a birthdate range search response, mapping and
+ * serializing every user as before, or writing the cached encodings of unchanged users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonCacheBenchmark {
+
+  private static final int USERS = 100_000;
+
+  private static final int ROWS = 10_000;
+
+  private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+  private static final LocalDate FROM_DATE = FIRST_BIRTH_DATE;
+
+  private static final LocalDate TO_DATE = FIRST_BIRTH_DATE.plusDays(ROWS / 10 - 1);
+
+  private final OutputStream out = OutputStream.nullOutputStream();
+
+  private InMemoryUserRepository userRepository;
+
+  private UserMapper userMapper;
+
+  private ObjectMapper objectMapper;
+
+  private UserJsonCache userJsonCache;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    userRepository = new InMemoryUserRepository();
+    for (int i = 0; i < USERS; i++) {
+      userRepository.insert(newUser(i));
+    }
+    userMapper = new UserMapperImpl();
+    objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    userJsonCache = new UserJsonCache(new UserJsonCacheProperties(DataSize.ofMegabytes(64)),
+        userMapper, objectMapper);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void serialized() throws IOException {
+    objectMapper.writeValue(out, userRepository.findByBirthDateRange(FROM_DATE, TO_DATE).stream()
+        .map(userMapper::toDto)
+        .toList());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void cached() throws IOException {
+    EncodedJson.arrayOf(userRepository.findByBirthDateRange(FROM_DATE, TO_DATE).stream()
+            .map(userJsonCache::encode)
+            .toList())
+        .writeTo(out);
+  }
+
+  private static User newUser(int i) {
+    return User.builder()
+        .email("user" + i + "@example.com")
+        .firstName("First" + i)
+        .lastName("Last" + i)
+        .birthDate(FIRST_BIRTH_DATE.plusDays(i % (USERS / 10)))
+        .address("Some Street " + i + ", Some City")
+        .phoneNumber("+380" + i)
+        .build();
+  }
+
+}
@@ -0,0 +1,91 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.query.UserIndexes;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import com.clearsolutions.javapracticaltest.query.UserQueryEngine;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a query for the users born within a range, with a last name prefix and living in a
+ * city, answered by the query planner or by filtering the birthdate range search as clients did
+ * before. A tenth of the users share the short last name prefix; the long one is selective.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserQueryBenchmark {
+
+  private static final int USERS = 100_000;
+
+  private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+  private static final LocalDate FROM_DATE = LocalDate.of(1960, 1, 1);
+
+  private static final LocalDate TO_DATE = LocalDate.of(1989, 12, 31);
+
+  private static final String[] LAST_NAMES = {"Bondarenko", "Kovalenko", "Melnyk", "Shevchenko",
+      "Tkachenko", "Boyko", "Kravchenko", "Oliynyk", "Koval", "Zinchenko"};
+
+  private static final String[] CITIES = {"Kyiv", "Lviv", "Odesa", "Kharkiv", "Dnipro"};
+
+  @Param({"zin", "zinchenko12"})
+  private String lastNamePrefix;
+
+  private InMemoryUserRepository userRepository;
+
+  private UserQueryEngine userQueryEngine;
+
+  private UserQuery query;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    userRepository = new InMemoryUserRepository();
+    for (int i = 0; i < USERS; i++) {
+      userRepository.insert(User.builder()
+          .email("user" + i + "@example.com")
+          .firstName("First" + i)
+          .lastName(LAST_NAMES[i % LAST_NAMES.length] + (i / LAST_NAMES.length))
+          .birthDate(FIRST_BIRTH_DATE.plusDays(i % 18_250))
+          .address("Some Street " + i + ", " + CITIES[i / 7 % CITIES.length])
+          .build());
+    }
+    userQueryEngine = new UserQueryEngine(userRepository, new UserIndexes(userRepository));
+    query = new UserQuery(null, FROM_DATE, TO_DATE, null, lastNamePrefix, null, "odesa", null,
+        null);
+    System.out.printf("%nPlan: %s, rows: %d%n", userQueryEngine.explain(query).access(),
+        planned().size());
+  }
+
+  @Benchmark
+  public List<User> planned() {
+    return userQueryEngine.execute(query);
+  }
+
+  @Benchmark
+  public List<User> filteredRangeSearch() {
+    return userRepository.findByBirthDateRange(FROM_DATE, TO_DATE).stream()
+        .filter(user -> user.getLastName().toLowerCase().startsWith(lastNamePrefix)
+            && user.getAddress().toLowerCase().contains("odesa"))
+        .toList();
+  }
+
+}
@@ -0,0 +1,145 @@
+package com.clearsolutions.javapracticaltest.benchmark;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.JdbcUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.JdbcUserRepositoryProperties;
+import com.clearsolutions.javapracticaltest.repository.impl.TieredUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.TieredUserRepositoryProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the same workload against every {@link UserRepository} backend, so they can be compared
+ * operation by operation. The tiered backend caches a tenth of the users on the heap. The heap used
+ * once the users are loaded is printed at the start of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class UserRepositoryBenchmark {
+
+  private static final int USERS = 100_000;
+
+  private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+  private static final int BIRTH_DATE_SPREAD_DAYS = 20_000;
+
+  @Param({"memory", "jdbc", "tiered"})
+  private String backend;
+
+  private UserRepository userRepository;
+
+  private HikariDataSource dataSource;
+
+  private Path recordFile;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    userRepository = switch (backend) {
+      case "memory" -> new InMemoryUserRepository();
+      case "jdbc" -> {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        yield new JdbcUserRepository(dataSource,
+            new JdbcUserRepositoryProperties(500, Duration.ofMillis(50), 50_000));
+      }
+      case "tiered" -> {
+        recordFile = Files.createTempFile("users", ".dat");
+        yield new TieredUserRepository(new TieredUserRepositoryProperties(recordFile,
+            USERS / 10, 1 << 16), new SimpleMeterRegistry());
+      }
+      default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+    };
+    for (int i = 0; i < USERS; i++) {
+      userRepository.insert(newUser(i));
+    }
+    if (userRepository instanceof JdbcUserRepository jdbcUserRepository) {
+      jdbcUserRepository.flush();
+    }
+    System.gc();
+    System.out.printf("%nHeap used after loading %d users: %d bytes%n", USERS,
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (userRepository instanceof JdbcUserRepository jdbcUserRepository) {
+      jdbcUserRepository.close();
+      dataSource.close();
+    }
+    if (userRepository instanceof TieredUserRepository tieredUserRepository) {
+      tieredUserRepository.close();
+      Files.delete(recordFile);
+    }
+  }
+
+  @Benchmark
+  public User findById() {
+    return userRepository.findById(randomId()).orElse(null);
+  }
+
+  @Benchmark
+  public User insert() {
+    return userRepository.insert(newUser(ThreadLocalRandom.current().nextInt(USERS)));
+  }
+
+  @Benchmark
+  public boolean replace() {
+    User user = userRepository.findById(randomId()).orElse(null);
+    return user != null
+        && userRepository.replace(user, user.toBuilder().email("changed@example.com").build());
+  }
+
+  @Benchmark
+  public List<User> findByBirthDateRange() {
+    LocalDate fromDate = FIRST_BIRTH_DATE.plusDays(
+        ThreadLocalRandom.current().nextInt(BIRTH_DATE_SPREAD_DAYS));
+    return userRepository.findByBirthDateRange(fromDate, fromDate.plusDays(30));
+  }
+
+  private static long randomId() {
+    return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+  }
+
+  private static User newUser(int i) {
+    return User.builder()
+        .email("user" + i + "@example.com")
+        .firstName("First" + i)
+        .lastName("Last" + i)
+        .birthDate(FIRST_BIRTH_DATE.plusDays(i % BIRTH_DATE_SPREAD_DAYS))
+        .address("Address " + i)
+        .phoneNumber("+380" + i)
+        .build();
+  }
+
+}
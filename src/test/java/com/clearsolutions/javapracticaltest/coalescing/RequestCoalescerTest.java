@@ -0,0 +1,85 @@
+package com.clearsolutions.javapracticaltest.coalescing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private RequestCoalescer requestCoalescer;
+
+  @BeforeEach
+  public void init() {
+    meterRegistry = new SimpleMeterRegistry();
+    requestCoalescer = new RequestCoalescer(meterRegistry);
+  }
+
+  @Test
+  void concurrentIdenticalRequestsShareOneComputationTest() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> result = List.of("result");
+    CompletableFuture<CompletableFuture<List<String>>> leader = CompletableFuture.supplyAsync(
+        () -> requestCoalescer.execute("key", () -> {
+          started.countDown();
+          await(release);
+          return result;
+        }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<List<String>> follower = requestCoalescer.execute("key", () -> {
+      throw new AssertionError("Identical request must not be computed again");
+    });
+    assertFalse(follower.isDone());
+    release.countDown();
+
+    assertSame(result, follower.get(5, TimeUnit.SECONDS));
+    assertSame(result, leader.get(5, TimeUnit.SECONDS).join());
+    assertEquals(1, requests("executed"));
+    assertEquals(1, requests("coalesced"));
+  }
+
+  @Test
+  void sequentialRequestsAreComputedAgainTest() {
+    assertEquals(1, requestCoalescer.execute("key", () -> 1).join());
+    assertEquals(2, requestCoalescer.execute("key", () -> 2).join());
+    assertEquals(2, requests("executed"));
+    assertEquals(0, requests("coalesced"));
+  }
+
+  @Test
+  void failedComputationIsNotRememberedTest() {
+    CompletableFuture<Object> failed = requestCoalescer.execute("key", () -> {
+      throw new IllegalStateException("failed");
+    });
+    CompletionException e = assertThrows(CompletionException.class, failed::join);
+    assertEquals(IllegalStateException.class, e.getCause().getClass());
+    assertEquals("ok", requestCoalescer.execute("key", () -> "ok").join());
+  }
+
+  private double requests(String result) {
+    return meterRegistry.get("user.search.requests").tag("result", result).counter().count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,285 @@
+package com.clearsolutions.javapracticaltest.concurrency;
+
+import static com.clearsolutions.javapracticaltest.concurrency.UserServiceSpecification.DELETED;
+import static com.clearsolutions.javapracticaltest.concurrency.UserServiceSpecification.NOT_FOUND;
+import static com.clearsolutions.javapracticaltest.concurrency.UserServiceSpecification.OBJECT_MAPPER;
+import static com.clearsolutions.javapracticaltest.concurrency.UserServiceSpecification.address;
+import static com.clearsolutions.javapracticaltest.concurrency.UserServiceSpecification.json;
+import static com.clearsolutions.javapracticaltest.concurrency.UserServiceSpecification.user;
+import static org.jetbrains.kotlinx.lincheck.strategy.managed.ManagedStrategyGuaranteeKt.forClasses;
+
+import com.clearsolutions.javapracticaltest.coalescing.RequestCoalescer;
+import com.clearsolutions.javapracticaltest.exception.UserNotFoundException;
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCache;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCacheProperties;
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapper;
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapperImpl;
+import com.clearsolutions.javapracticaltest.query.UserIndexes;
+import com.clearsolutions.javapracticaltest.query.UserQueryEngine;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import com.clearsolutions.javapracticaltest.service.ValidationService;
+import com.clearsolutions.javapracticaltest.service.impl.UserServiceImpl;
+import com.clearsolutions.javapracticaltest.util.PatchUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.executable.ExecutableValidator;
+import jakarta.validation.metadata.BeanDescriptor;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.jetbrains.kotlinx.lincheck.Actor;
+import org.jetbrains.kotlinx.lincheck.LinChecker;
+import org.jetbrains.kotlinx.lincheck.annotations.Operation;
+import org.jetbrains.kotlinx.lincheck.annotations.Param;
+import org.jetbrains.kotlinx.lincheck.execution.ExecutionScenario;
+import org.jetbrains.kotlinx.lincheck.paramgen.IntGen;
+import org.jetbrains.kotlinx.lincheck.paramgen.LongGen;
+import org.jetbrains.kotlinx.lincheck.strategy.managed.modelchecking.ModelCheckingOptions;
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressOptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Checks that concurrent create, update, patch, delete, lookup and birthdate range search calls
+ * of {@link UserServiceImpl} over the in-memory repository are linearizable with respect to
+ * {@link UserServiceSpecification}.
+ *
+ * <p>Lincheck generates scenarios of these operations on a few IDs, runs them concurrently on a
+ * fresh service and fails if a result cannot be explained by any sequential order. The model
+ * checker explores thread interleavings systematically; the stress run executes the scenarios on
+ * real threads. The model checker also runs fixed scenarios for the known races: ID assignment
+ * against lookups and searches, and the read-modify-write of a patch against an update.
+ *
+ * <p>The libraries the service delegates to are treated as atomic, and so are the query indexes,
+ * which lag the repository by design and are not part of the specification. The scenario sizes
+ * are read from the {@code lincheck.*} system properties, which the {@code concurrency} Maven
+ * profile raises from the routine defaults. Instrumenting the service for the model checker takes
+ * about a minute, so the routine build only runs the stress test and the profile adds the model
+ * checker.
+ */
+@Param(name = "id", gen = LongGen.class, conf = "1:2")
+@Param(name = "seed", gen = IntGen.class, conf = "1:3")
+public class UserServiceLinearizabilityTest {
+
+  private static final int ITERATIONS = Integer.getInteger("lincheck.iterations", 2);
+
+  private static final int INVOCATIONS = Integer.getInteger("lincheck.invocations", 50);
+
+  private static final int THREADS = Integer.getInteger("lincheck.threads", 2);
+
+  private static final int ACTORS_PER_THREAD = Integer.getInteger("lincheck.actorsPerThread", 2);
+
+  private static final LocalDate FROM_DATE = LocalDate.of(1990, 1, 1);
+
+  private static final LocalDate TO_DATE = LocalDate.of(1990, 12, 31);
+
+  private static final UserMapper USER_MAPPER = new UserMapperImpl();
+
+  private final UserServiceImpl userService;
+
+  public UserServiceLinearizabilityTest() {
+    InMemoryUserRepository userRepository = new InMemoryUserRepository();
+    UserIndexes userIndexes = new UserIndexes(userRepository);
+    ValidationService validationService = new ValidationService(new SharedValidator(),
+        new MockEnvironment().withProperty("user.minValidAge", "18"));
+    userService = new UserServiceImpl(validationService, USER_MAPPER, new PatchUtil(OBJECT_MAPPER),
+        userRepository, new UserJsonCache(new UserJsonCacheProperties(DataSize.ofKilobytes(64)),
+            USER_MAPPER, OBJECT_MAPPER),
+        new RequestCoalescer(new SimpleMeterRegistry()), userIndexes,
+        new UserQueryEngine(userRepository, userIndexes));
+  }
+
+  @Operation
+  public long create(@Param(name = "seed") int seed) {
+    return userService.create(user(0, seed)).getId();
+  }
+
+  @Operation
+  public String update(@Param(name = "id") long id, @Param(name = "seed") int seed) {
+    try {
+      return json(userService.update(id, user(0, seed)));
+    } catch (UserNotFoundException e) {
+      return NOT_FOUND;
+    }
+  }
+
+  /**
+   * Copies the first name over the last name and replaces the address, so the result depends on
+   * the version of the user the patch was applied to.
+   */
+  @Operation
+  public String patch(@Param(name = "id") long id, @Param(name = "seed") int seed) {
+    try {
+      return json(userService.updatePartially(id, patchOf(seed)));
+    } catch (UserNotFoundException e) {
+      return NOT_FOUND;
+    }
+  }
+
+  @Operation
+  public String delete(@Param(name = "id") long id) {
+    try {
+      userService.delete(id);
+      return DELETED;
+    } catch (UserNotFoundException e) {
+      return NOT_FOUND;
+    }
+  }
+
+  @Operation
+  public String findById(@Param(name = "id") long id) {
+    try {
+      return new String(userService.findEncodedUserById(id).documents().get(0),
+          StandardCharsets.UTF_8);
+    } catch (UserNotFoundException e) {
+      return NOT_FOUND;
+    }
+  }
+
+  @Operation
+  public String search() {
+    EncodedJson users = userService.searchEncodedUsersByBirthDateRange(FROM_DATE, TO_DATE).join();
+    return users.documents().stream()
+        .map(document -> new String(document, StandardCharsets.UTF_8))
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  /**
+   * Runs every operation once, so the lazy initialization of JDK caches such as the locale data
+   * used to format error messages is done before the model checker, which would take its loops
+   * for a livelock.
+   */
+  @BeforeAll
+  public static void init() {
+    UserServiceLinearizabilityTest test = new UserServiceLinearizabilityTest();
+    test.create(1);
+    test.update(1, 2);
+    test.patch(1, 3);
+    test.findById(1);
+    test.search();
+    test.delete(1);
+    test.update(1, 1);
+    test.patch(1, 1);
+    test.findById(1);
+    test.delete(1);
+  }
+
+  @Test
+  @Tag("model-checking")
+  void modelCheckingTest() {
+    LinChecker.check(UserServiceLinearizabilityTest.class, new ModelCheckingOptions()
+        .iterations(ITERATIONS)
+        .invocationsPerIteration(INVOCATIONS)
+        .threads(THREADS)
+        .actorsPerThread(ACTORS_PER_THREAD)
+        .sequentialSpecification(UserServiceSpecification.class)
+        .addCustomScenario(new ExecutionScenario(List.of(),
+            List.of(List.of(actor("create", 1)),
+                List.of(actor("create", 2), actor("findById", 1L))),
+            List.of(), null))
+        .addCustomScenario(new ExecutionScenario(List.of(),
+            List.of(List.of(actor("create", 1)), List.of(actor("create", 2), actor("search"))),
+            List.of(), null))
+        .addCustomScenario(new ExecutionScenario(List.of(actor("create", 1)),
+            List.of(List.of(actor("patch", 1L, 2)), List.of(actor("update", 1L, 3))),
+            List.of(actor("findById", 1L)), null))
+        .addGuarantee(forClasses(ObjectMapper.class.getName(), PatchUtil.class.getName(),
+            ValidationService.class.getName(), UserMapperImpl.class.getName(),
+            SimpleMeterRegistry.class.getName(), UserIndexes.class.getName())
+            .allMethods()
+            .treatAsAtomic()));
+  }
+
+  @Test
+  void stressTest() {
+    LinChecker.check(UserServiceLinearizabilityTest.class, new StressOptions()
+        .iterations(ITERATIONS)
+        .invocationsPerIteration(INVOCATIONS)
+        .threads(THREADS)
+        .actorsPerThread(ACTORS_PER_THREAD)
+        .sequentialSpecification(UserServiceSpecification.class));
+  }
+
+  /**
+   * Delegates to a validator shared by all test instances. Lincheck instruments the classes of
+   * the objects reachable from the test instance and fails on the JDK records reachable from the
+   * caches of Hibernate Validator, so the validator is kept out of that object graph.
+   */
+  private static final class SharedValidator implements Validator {
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validate(T object, Class<?>... groups) {
+      return Holder.VALIDATOR.validate(object, groups);
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateProperty(T object, String propertyName,
+        Class<?>... groups) {
+      return Holder.VALIDATOR.validateProperty(object, propertyName, groups);
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateValue(Class<T> beanType, String propertyName,
+        Object value, Class<?>... groups) {
+      return Holder.VALIDATOR.validateValue(beanType, propertyName, value, groups);
+    }
+
+    @Override
+    public BeanDescriptor getConstraintsForClass(Class<?> clazz) {
+      return Holder.VALIDATOR.getConstraintsForClass(clazz);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+      return Holder.VALIDATOR.unwrap(type);
+    }
+
+    @Override
+    public ExecutableValidator forExecutables() {
+      return Holder.VALIDATOR.forExecutables();
+    }
+
+    private static final class Holder {
+
+      static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    }
+
+  }
+
+  /**
+   * Creates a step of a custom scenario, calling the operation with the arguments.
+   */
+  private static Actor actor(String operation, Object... arguments) {
+    Method method = Arrays.stream(UserServiceLinearizabilityTest.class.getMethods())
+        .filter(candidate -> candidate.getName().equals(operation))
+        .findFirst()
+        .orElseThrow();
+    return new Actor(method, List.of(arguments));
+  }
+
+  private static JsonPatch patchOf(int seed) {
+    try {
+      return OBJECT_MAPPER.readValue("[{\"op\":\"copy\",\"from\":\"/firstName\","
+          + "\"path\":\"/lastName\"},{\"op\":\"replace\",\"path\":\"/address\",\"value\":\""
+          + address(seed) + "\"}]", JsonPatch.class);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
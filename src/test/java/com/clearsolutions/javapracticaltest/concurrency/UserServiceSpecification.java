@@ -0,0 +1,106 @@
+package com.clearsolutions.javapracticaltest.concurrency;
+
+import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Sequential specification of the user service operations exercised by
+ * {@link UserServiceLinearizabilityTest}: a plain map of users keyed by sequentially assigned IDs.
+ * Every concurrent execution of the service must be explainable by some order of these
+ * operations.
+ */
+public class UserServiceSpecification {
+
+  static final String NOT_FOUND = "not found";
+
+  static final String DELETED = "deleted";
+
+  static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+  private final Map<Long, UserDto> users = new TreeMap<>();
+
+  private long nextId = 1;
+
+  public long create(int seed) {
+    long id = nextId++;
+    users.put(id, user(id, seed));
+    return id;
+  }
+
+  public String update(long id, int seed) {
+    if (!users.containsKey(id)) {
+      return NOT_FOUND;
+    }
+    UserDto updated = user(id, seed);
+    users.put(id, updated);
+    return json(updated);
+  }
+
+  public String patch(long id, int seed) {
+    UserDto user = users.get(id);
+    if (user == null) {
+      return NOT_FOUND;
+    }
+    UserDto patched = UserDto.builder()
+        .id(id)
+        .email(user.getEmail())
+        .firstName(user.getFirstName())
+        .lastName(user.getFirstName())
+        .birthDate(user.getBirthDate())
+        .address(address(seed))
+        .phoneNumber(user.getPhoneNumber())
+        .build();
+    users.put(id, patched);
+    return json(patched);
+  }
+
+  public String delete(long id) {
+    return users.remove(id) == null ? NOT_FOUND : DELETED;
+  }
+
+  public String findById(long id) {
+    UserDto user = users.get(id);
+    return user == null ? NOT_FOUND : json(user);
+  }
+
+  public String search() {
+    return users.values().stream()
+        .map(UserServiceSpecification::json)
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  /**
+   * Returns the user data generated from a seed.
+   */
+  static UserDto user(long id, int seed) {
+    return UserDto.builder()
+        .id(id)
+        .email("user" + seed + "@example.com")
+        .firstName("First" + seed)
+        .lastName("Last" + seed)
+        .birthDate(LocalDate.of(1990, 1, seed))
+        .address("Street " + seed)
+        .phoneNumber("+38050000000" + seed)
+        .build();
+  }
+
+  static String address(int seed) {
+    return "Patched Street " + seed;
+  }
+
+  static String json(UserDto user) {
+    try {
+      return OBJECT_MAPPER.writeValueAsString(user);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
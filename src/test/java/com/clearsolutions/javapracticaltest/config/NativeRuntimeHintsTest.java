@@ -0,0 +1,50 @@
+package com.clearsolutions.javapracticaltest.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.ReplaceOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+class NativeRuntimeHintsTest {
+
+  private RuntimeHints hints;
+
+  @BeforeEach
+  public void init() {
+    hints = new RuntimeHints();
+    new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+  }
+
+  @Test
+  void registersJsonPatchReflectionTest() {
+    assertTrue(RuntimeHintsPredicates.reflection().onType(JsonPatch.class)
+        .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+    assertTrue(RuntimeHintsPredicates.reflection().onType(ReplaceOperation.class)
+        .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+  }
+
+  @Test
+  void registersJsonPatchMessagesTest() {
+    assertTrue(RuntimeHintsPredicates.resource()
+        .forResource("com/github/fge/jsonpatch/messages.properties").test(hints));
+    assertTrue(RuntimeHintsPredicates.resource()
+        .forResource("com/github/fge/jackson/jsonpointer.properties").test(hints));
+  }
+
+  @Test
+  void registersDtoBindingTest() {
+    assertTrue(RuntimeHintsPredicates.reflection().onType(UserDto.class).test(hints));
+    assertTrue(RuntimeHintsPredicates.reflection()
+        .onType(TypeReference.of(ProjectedUser.class.getName() + "$Serializer"))
+        .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+  }
+
+}
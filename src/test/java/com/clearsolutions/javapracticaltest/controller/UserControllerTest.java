@@ -2,16 +2,29 @@ package com.clearsolutions.javapracticaltest.controller;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.clearsolutions.javapracticaltest.dto.UserDto;
+import com.clearsolutions.javapracticaltest.idempotency.IdempotencyService;
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.query.QueryPlan;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import com.clearsolutions.javapracticaltest.ratelimit.ClientIdResolver;
+import com.clearsolutions.javapracticaltest.service.ValidationService;
 import com.clearsolutions.javapracticaltest.service.impl.UserServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
@@ -19,15 +32,19 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(UserController.class)
+@Import({IdempotencyService.class, ClientIdResolver.class, ValidationService.class})
 class UserControllerTest {
 
   @Autowired
@@ -68,6 +85,101 @@ class UserControllerTest {
         .andExpect(content().json(content));
   }
 
+  @Test
+  void createWithIdempotencyKeyTest() throws Exception {
+    String content = objectMapper.writeValueAsString(userDto);
+    when(userService.create(any(UserDto.class))).thenReturn(userDto);
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(post("/users")
+              .header("Idempotency-Key", "key")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(content))
+          .andExpect(status().isOk())
+          .andExpect(content().json(content));
+    }
+    verify(userService, times(1)).create(any(UserDto.class));
+  }
+
+  @Test
+  void createWithOversizedFieldTest() throws Exception {
+    UserDto oversizedUserDto = UserDto.builder()
+        .email(userDto.getEmail())
+        .firstName(userDto.getFirstName())
+        .lastName(userDto.getLastName())
+        .birthDate(userDto.getBirthDate())
+        .address("a".repeat(1025))
+        .build();
+    mockMvc.perform(post("/users")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(oversizedUserDto)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.address").exists());
+    verify(userService, times(0)).create(any(UserDto.class));
+  }
+
+  @Test
+  void createWithReusedIdempotencyKeyTest() throws Exception {
+    when(userService.create(any(UserDto.class))).thenReturn(userDto);
+    mockMvc.perform(post("/users")
+            .header("Idempotency-Key", "reused-key")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(userDto)))
+        .andExpect(status().isOk());
+    UserDto otherUserDto = UserDto.builder()
+        .email(userDto.getEmail())
+        .firstName("otherFirstName")
+        .lastName(userDto.getLastName())
+        .birthDate(userDto.getBirthDate())
+        .build();
+    mockMvc.perform(post("/users")
+            .header("Idempotency-Key", "reused-key")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(otherUserDto)))
+        .andExpect(status().isUnprocessableEntity())
+        .andExpect(jsonPath("$.message").exists());
+    verify(userService, times(1)).create(any(UserDto.class));
+  }
+
+  @Test
+  void createWithReusedIdempotencyKeyAndInvalidBodyTest() throws Exception {
+    when(userService.create(any(UserDto.class))).thenReturn(userDto);
+    mockMvc.perform(post("/users")
+            .header("Idempotency-Key", "validated-key")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(userDto)))
+        .andExpect(status().isOk());
+    UserDto invalidUserDto = UserDto.builder()
+        .email("not-an-email")
+        .firstName(userDto.getFirstName())
+        .lastName(userDto.getLastName())
+        .birthDate(userDto.getBirthDate())
+        .build();
+    mockMvc.perform(post("/users")
+            .header("Idempotency-Key", "validated-key")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(invalidUserDto)))
+        .andExpect(status().isUnprocessableEntity());
+    verify(userService, times(1)).create(any(UserDto.class));
+  }
+
+  @Test
+  void createWithIdempotencyKeyOfOtherClientTest() throws Exception {
+    String content = objectMapper.writeValueAsString(userDto);
+    when(userService.create(any(UserDto.class))).thenReturn(userDto);
+    for (String address : List.of("10.0.0.1", "10.0.0.2")) {
+      mockMvc.perform(post("/users")
+              .with(request -> {
+                request.setRemoteAddr(address);
+                return request;
+              })
+              .header("Idempotency-Key", "shared-key")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(content))
+          .andExpect(status().isOk());
+    }
+    verify(userService, times(2)).create(any(UserDto.class));
+  }
+
   @Test
   void updatePartiallyTest() throws Exception {
     JsonPatch patchDocument = new JsonPatch(List.of());
@@ -89,6 +201,17 @@ class UserControllerTest {
         .andExpect(content().json(content));
   }
 
+  @Test
+  void findByIdTest() throws Exception {
+    String content = objectMapper.writeValueAsString(userDto);
+    when(userService.findEncodedUserById(USER_ID))
+        .thenReturn(EncodedJson.of(content.getBytes(StandardCharsets.UTF_8)));
+    mockMvc.perform(get("/users/{id}", USER_ID))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(content, true));
+  }
+
   @Test
   void deleteTest() throws Exception {
     mockMvc.perform(delete("/users/{id}", USER_ID))
@@ -98,13 +221,81 @@ class UserControllerTest {
   @Test
   void searchUsersByBirthDateRangeTest() throws Exception {
     List<UserDto> userDtos = Arrays.asList(userDto);
-    when(userService.searchUsersByBirthDateRange(any(LocalDate.class), any(LocalDate.class)))
-        .thenReturn(userDtos);
-    mockMvc.perform(get("/users")
+    when(userService.searchEncodedUsersByBirthDateRange(any(LocalDate.class),
+        any(LocalDate.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            EncodedJson.arrayOf(List.of(objectMapper.writeValueAsBytes(userDto)))));
+    MvcResult result = mockMvc.perform(get("/users")
             .param("fromDate", "2000-01-01")
             .param("toDate", "2000-01-02"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result))
         .andExpect(status().isOk())
         .andExpect(content().json(objectMapper.writeValueAsString(userDtos)));
   }
 
-}
\ No newline at end of file
+  @Test
+  void searchUsersByBirthDateRangeWithFieldsTest() throws Exception {
+    UserProjection projection = UserProjection.of(List.of("id", "email"));
+    when(userService.searchUsersByBirthDateRange(any(LocalDate.class), any(LocalDate.class),
+        any(UserProjection.class)))
+        .thenReturn(List.of(projection.project(User.builder().id(USER_ID).email("test@email.com")
+            .firstName("firstName").build())));
+    mockMvc.perform(get("/users")
+            .param("fromDate", "2000-01-01")
+            .param("toDate", "2000-01-02")
+            .param("fields", "email,id"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[{\"id\":1,\"email\":\"test@email.com\"}]", true));
+    verify(userService).searchUsersByBirthDateRange(LocalDate.parse("2000-01-01"),
+        LocalDate.parse("2000-01-02"), projection);
+  }
+
+  @Test
+  void searchUsersByBirthDateRangeWithUnknownFieldTest() throws Exception {
+    mockMvc.perform(get("/users")
+            .param("fromDate", "2000-01-01")
+            .param("toDate", "2000-01-02")
+            .param("fields", "id,password"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void queryTest() throws Exception {
+    when(userService.queryEncodedUsers(any(UserQuery.class))).thenReturn(
+        EncodedJson.arrayOf(List.of(objectMapper.writeValueAsBytes(userDto))));
+    mockMvc.perform(get("/users/query")
+            .param("bornFrom", "1990-01-01")
+            .param("lastNameStartsWith", "last")
+            .param("addressContains", "Kyiv")
+            .param("sort", "-birthDate")
+            .param("limit", "10"))
+        .andExpect(status().isOk())
+        .andExpect(content().json(objectMapper.writeValueAsString(List.of(userDto)), true));
+    verify(userService).queryEncodedUsers(new UserQuery(null, LocalDate.parse("1990-01-01"),
+        null, null, "last", null, "Kyiv", "-birthDate", 10));
+  }
+
+  @Test
+  void explainQueryTest() throws Exception {
+    QueryPlan.AccessPath access = new QueryPlan.AccessPath("lastName",
+        "lastName starts with 'last'", 3, 12);
+    when(userService.explainQuery(any(UserQuery.class))).thenReturn(new QueryPlan(access,
+        List.of(access), List.of("lastName starts with 'last'"), "id asc", null, List.of()));
+    mockMvc.perform(get("/users/query")
+            .param("lastNameStartsWith", "last")
+            .param("explain", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.access.index").value("lastName"))
+        .andExpect(jsonPath("$.access.estimatedRows").value(3));
+  }
+
+  @Test
+  void queryWithInvalidDateTest() throws Exception {
+    mockMvc.perform(get("/users/query")
+            .param("bornFrom", "yesterday"))
+        .andExpect(status().isBadRequest());
+  }
+
+}
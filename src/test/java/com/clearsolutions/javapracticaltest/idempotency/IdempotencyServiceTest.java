@@ -0,0 +1,146 @@
+package com.clearsolutions.javapracticaltest.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.clearsolutions.javapracticaltest.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyServiceTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private final AtomicInteger executions = new AtomicInteger();
+
+  private IdempotencyService idempotencyService;
+
+  @BeforeEach
+  public void init() {
+    idempotencyService = new IdempotencyService(
+        new IdempotencyProperties(2, Duration.ofSeconds(10)), new ObjectMapper(), clock::get);
+  }
+
+  @Test
+  void executeReturnsRememberedResultTest() {
+    assertEquals(1, execute("key"));
+    assertEquals(1, execute("key"));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void executeWithoutKeyAlwaysRunsTest() {
+    execute(null);
+    execute(null);
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void executeAfterExpirationRunsAgainTest() {
+    execute("key");
+    clock.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertEquals(2, execute("key"));
+  }
+
+  @Test
+  void executeEvictsOldestKeyTest() {
+    execute("first");
+    execute("second");
+    execute("third");
+    assertEquals(3, execute("third"));
+    assertEquals(4, execute("first"));
+  }
+
+  @Test
+  void executeDoesNotRememberFailuresTest() {
+    assertThrows(IllegalStateException.class, () -> idempotencyService.execute("client", "scope",
+        "key", "request", () -> {
+          throw new IllegalStateException("failure");
+        }));
+    assertEquals(1, execute("key"));
+  }
+
+  @Test
+  void executeCollapsesConcurrentRequestsTest() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Integer> first = executor.submit(() -> idempotencyService.execute("client", "scope",
+          "key", "request", () -> {
+            started.countDown();
+            await(release);
+            return executions.incrementAndGet();
+          }));
+      started.await();
+      Future<Integer> second = executor.submit(() -> execute("key"));
+      release.countDown();
+      assertEquals(1, first.get());
+      assertEquals(1, second.get());
+      assertEquals(1, executions.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void executeScopesKeysByClientTest() {
+    idempotencyService.execute("first", "scope", "key", "request", executions::incrementAndGet);
+    assertEquals(2, idempotencyService.execute("second", "scope", "key", "request",
+        executions::incrementAndGet));
+  }
+
+  @Test
+  void executeRejectsKeyReusedWithDifferentRequestTest() {
+    idempotencyService.execute("client", "scope", "key", "request", executions::incrementAndGet);
+    assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("client",
+        "scope", "key", "other request", executions::incrementAndGet));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void executeDoesNotEvictKeysInFlightTest() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> first = executor.submit(() -> idempotencyService.execute("client", "scope",
+          "first", "request", () -> {
+            started.countDown();
+            await(release);
+            return executions.incrementAndGet();
+          }));
+      started.await();
+      execute("second");
+      execute("third");
+      release.countDown();
+      assertEquals(3, first.get());
+      assertEquals(3, execute("first"));
+      assertEquals(3, executions.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private int execute(String key) {
+    return idempotencyService.execute("client", "scope", key, "request",
+        executions::incrementAndGet);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
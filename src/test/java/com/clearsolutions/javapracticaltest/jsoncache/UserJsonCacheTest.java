@@ -0,0 +1,96 @@
+package com.clearsolutions.javapracticaltest.jsoncache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.clearsolutions.javapracticaltest.mapper.impl.UserMapperImpl;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class UserJsonCacheTest {
+
+  private UserJsonCache userJsonCache;
+
+  private User user;
+
+  @BeforeEach
+  public void init() {
+    userJsonCache = new UserJsonCache(new UserJsonCacheProperties(DataSize.ofKilobytes(1)),
+        new UserMapperImpl(), new ObjectMapper().registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    user = newUser(1L, 1L, "test@example.com");
+  }
+
+  @Test
+  void encodeReusesBytesOfSameVersionTest() {
+    byte[] json = userJsonCache.encode(user);
+    assertEquals("{\"id\":1,\"email\":\"test@example.com\",\"firstName\":\"Test\","
+            + "\"lastName\":\"Test\",\"birthDate\":\"1999-01-01\",\"address\":null,"
+            + "\"phoneNumber\":null}",
+        new String(json, StandardCharsets.UTF_8));
+    assertSame(json, userJsonCache.encode(user));
+  }
+
+  @Test
+  void encodeRefreshesChangedVersionTest() {
+    byte[] json = userJsonCache.encode(user);
+    byte[] changed = userJsonCache.encode(newUser(1L, 2L, "changed@example.com"));
+    assertTrue(new String(changed, StandardCharsets.UTF_8).contains("changed@example.com"));
+    assertSame(changed, userJsonCache.encode(newUser(1L, 2L, "changed@example.com")));
+    assertNotSame(json, userJsonCache.encode(user));
+  }
+
+  @Test
+  void invalidateDropsEntryTest() {
+    byte[] json = userJsonCache.encode(user);
+    userJsonCache.invalidate(user.getId());
+    byte[] encodedAgain = userJsonCache.encode(user);
+    assertNotSame(json, encodedAgain);
+    assertArrayEquals(json, encodedAgain);
+  }
+
+  @Test
+  void evictsOldestEntriesBeyondBudgetTest() {
+    byte[] first = userJsonCache.encode(user);
+    for (long id = 2; id <= 10; id++) {
+      userJsonCache.encode(newUser(id, 1L, "user" + id + "@example.com"));
+    }
+    assertTrue(userJsonCache.size() <= DataSize.ofKilobytes(1).toBytes());
+    assertNotSame(first, userJsonCache.encode(user));
+  }
+
+  @Test
+  void encodedJsonWritesArrayTest() throws Exception {
+    EncodedJson body = EncodedJson.arrayOf(List.of("{\"a\":1}".getBytes(StandardCharsets.UTF_8),
+        "{\"b\":2}".getBytes(StandardCharsets.UTF_8)));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+    assertEquals("[{\"a\":1},{\"b\":2}]", out.toString(StandardCharsets.UTF_8));
+    assertEquals(out.size(), body.length());
+    assertEquals(2, EncodedJson.arrayOf(List.of()).length());
+  }
+
+  private static User newUser(long id, long version, String email) {
+    return User.builder()
+        .id(id)
+        .version(version)
+        .email(email)
+        .firstName("Test")
+        .lastName("Test")
+        .birthDate(LocalDate.of(1999, 1, 1))
+        .build();
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.clearsolutions.javapracticaltest.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.clearsolutions.javapracticaltest.exception.InvalidFieldsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserProjectionTest {
+
+  private ObjectMapper objectMapper;
+
+  private User user;
+
+  @BeforeEach
+  public void init() {
+    objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    user = User.builder()
+        .id(7L)
+        .email("test@example.com")
+        .firstName("Test")
+        .lastName("Test")
+        .birthDate(LocalDate.of(1999, 1, 1))
+        .build();
+  }
+
+  @Test
+  void ofOrdersAndDeduplicatesFieldsTest() {
+    UserProjection projection = UserProjection.of(List.of("email", " id", "", "email"));
+    assertEquals(List.of(UserField.ID, UserField.EMAIL), projection.fields());
+  }
+
+  @Test
+  void ofRejectsUnknownOrMissingFieldsTest() {
+    assertThrows(InvalidFieldsException.class, () -> UserProjection.of(List.of("password")));
+    assertThrows(InvalidFieldsException.class, () -> UserProjection.of(List.of(" ")));
+  }
+
+  @Test
+  void serializesOnlyProjectedFieldsTest() throws Exception {
+    ProjectedUser projected = UserProjection.of(List.of("birthDate", "email")).project(user);
+    assertEquals("{\"email\":\"test@example.com\",\"birthDate\":\"1999-01-01\"}",
+        objectMapper.writeValueAsString(projected));
+  }
+
+  @Test
+  void serializesAllFieldsLikeDtoTest() throws Exception {
+    assertEquals("{\"id\":7,\"email\":\"test@example.com\",\"firstName\":\"Test\","
+            + "\"lastName\":\"Test\",\"birthDate\":\"1999-01-01\",\"address\":null,"
+            + "\"phoneNumber\":null}",
+        objectMapper.writeValueAsString(UserProjection.ALL.project(user)));
+  }
+
+}
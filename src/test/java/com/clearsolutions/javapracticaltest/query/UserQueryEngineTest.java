@@ -0,0 +1,206 @@
+package com.clearsolutions.javapracticaltest.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.clearsolutions.javapracticaltest.exception.InvalidFieldsException;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.repository.UserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.TieredUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.TieredUserRepositoryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserQueryEngineTest {
+
+  private static final int USERS = 1000;
+
+  private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+  private InMemoryUserRepository userRepository;
+
+  private UserIndexes userIndexes;
+
+  private UserQueryEngine userQueryEngine;
+
+  @BeforeEach
+  public void init() {
+    userRepository = new InMemoryUserRepository();
+    insertUsers(userRepository);
+    userIndexes = new UserIndexes(userRepository);
+    userQueryEngine = new UserQueryEngine(userRepository, userIndexes);
+  }
+
+  @Test
+  void picksMostSelectiveIndexTest() {
+    UserQuery query = new UserQuery(null, FIRST_BIRTH_DATE, LocalDate.of(1990, 12, 31), null,
+        "zi", null, "kyiv", null, null);
+    QueryPlan plan = userQueryEngine.explain(query);
+    assertEquals("lastName", plan.access().index());
+    assertEquals(10, plan.access().estimatedRows());
+    assertEquals(3, plan.alternatives().size());
+    assertEquals("lastName starts with 'zi'", plan.filters().get(0));
+    assertEquals(3, plan.filters().size());
+    assertEquals(10, userQueryEngine.execute(query).size());
+  }
+
+  @Test
+  void fallsBackToFullScanForUnselectiveCriteriaTest() {
+    UserQuery query = new UserQuery(null, FIRST_BIRTH_DATE, null, "first", null, null, "kyiv",
+        null, null);
+    assertEquals("none", userQueryEngine.explain(query).access().index());
+    assertEquals(USERS / 2, userQueryEngine.execute(query).size());
+  }
+
+  @Test
+  void estimatesBirthDateRangeFromHistogramTest() {
+    UserQuery query = new UserQuery(null, LocalDate.of(1960, 1, 1), LocalDate.of(1960, 12, 31),
+        null, null, null, null, null, null);
+    QueryPlan plan = userQueryEngine.explain(query);
+    assertEquals("birthDate", plan.access().index());
+    assertEquals(36, plan.access().estimatedRows(), 1);
+    assertEquals(36, userQueryEngine.execute(query).size());
+  }
+
+  @Test
+  void estimatesBirthDateRangeOutsideIndexedDatesTest() {
+    LocalDate lastBirthDate = FIRST_BIRTH_DATE.plusDays((USERS - 1) * 10L);
+    UserQuery query = new UserQuery(null, lastBirthDate.plusMonths(1),
+        lastBirthDate.withMonth(12).withDayOfMonth(31), null, null, null, null, null, null);
+    QueryPlan plan = userQueryEngine.explain(query);
+    assertEquals("birthDate", plan.access().index());
+    assertEquals(0, plan.access().estimatedRows());
+    assertEquals(0, plan.access().estimatedCost());
+    assertEquals(List.of(), userQueryEngine.execute(query));
+  }
+
+  @Test
+  void executesCombinedCriteriaTest() {
+    UserQuery query = new UserQuery(null, LocalDate.of(1955, 1, 1), LocalDate.of(1970, 1, 1),
+        null, "SMITH2", null, "Lviv", null, null);
+    List<User> expected = userRepository.streamAll(false)
+        .filter(user -> !user.getBirthDate().isBefore(LocalDate.of(1955, 1, 1))
+            && !user.getBirthDate().isAfter(LocalDate.of(1970, 1, 1))
+            && user.getLastName().startsWith("Smith2")
+            && user.getAddress().endsWith("Lviv"))
+        .toList();
+    assertEquals(ids(expected), ids(userQueryEngine.execute(query)));
+  }
+
+  @Test
+  void sortsAndLimitsTest() {
+    UserQuery query = new UserQuery(null, null, null, null, null, null, "kyiv", "-lastName", 3);
+    List<User> expected = userRepository.streamAll(false)
+        .filter(user -> user.getAddress().endsWith("Kyiv"))
+        .sorted(Comparator.comparing(User::getLastName).reversed())
+        .limit(3)
+        .toList();
+    assertEquals(ids(expected), ids(userQueryEngine.execute(query)));
+
+    UserQuery byIdDescending = new UserQuery(null, null, null, null, null, null, null, "-id", 2);
+    assertEquals(List.of((long) USERS, USERS - 1L), ids(userQueryEngine.execute(byIdDescending)));
+  }
+
+  @Test
+  void stopsFullScanOnceLimitReachedTest() {
+    AtomicInteger streamed = new AtomicInteger();
+    InMemoryUserRepository countingRepository = new InMemoryUserRepository() {
+      @Override
+      public Stream<User> streamAll(boolean descending) {
+        return super.streamAll(descending).peek(user -> streamed.incrementAndGet());
+      }
+    };
+    insertUsers(countingRepository);
+    UserQueryEngine countingQueryEngine = new UserQueryEngine(countingRepository,
+        new UserIndexes(countingRepository));
+    streamed.set(0);
+    UserQuery query = new UserQuery(null, null, null, null, null, null, "kyiv", null, 3);
+    assertEquals("none", countingQueryEngine.explain(query).access().index());
+    assertEquals(List.of(1L, 3L, 5L), ids(countingQueryEngine.execute(query)));
+    assertEquals(5, streamed.get());
+  }
+
+  @Test
+  void estimatesLongPrefixesTest() {
+    assertEquals(110, userIndexes.lastNames().estimateStartingWith("Smith2"));
+    assertEquals(USERS, userIndexes.firstNames().estimateStartingWith("first"));
+  }
+
+  @Test
+  void sortByUnknownFieldTest() {
+    UserQuery query = new UserQuery(null, null, null, null, null, null, null, "password", null);
+    assertThrows(InvalidFieldsException.class, () -> userQueryEngine.execute(query));
+  }
+
+  @Test
+  void indexesFollowChangesTest() {
+    User user = userRepository.findById(1L).orElseThrow();
+    User renamed = user.toBuilder().lastName("Adams").build();
+    userRepository.replace(user, renamed);
+    userIndexes.put(renamed);
+    userIndexes.put(user);
+
+    UserQuery adams = new UserQuery(null, null, null, null, "adams", null, null, null, null);
+    assertEquals(List.of(1L), ids(userQueryEngine.execute(adams)));
+    assertEquals(9, userIndexes.lastNames().estimateStartingWith("zi"));
+
+    userRepository.delete(1L);
+    userIndexes.remove(1L);
+    assertEquals(List.of(), userQueryEngine.execute(adams));
+    assertEquals(USERS - 1, userIndexes.size());
+  }
+
+  @Test
+  void scansHeapBoundedRepositoryWithoutIndexesTest() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TieredUserRepository tieredUserRepository = new TieredUserRepository(
+        new TieredUserRepositoryProperties(null, 10, 1024), meterRegistry);
+    try {
+      insertUsers(tieredUserRepository);
+      UserIndexes tieredIndexes = new UserIndexes(tieredUserRepository);
+      UserQueryEngine tieredQueryEngine = new UserQueryEngine(tieredUserRepository, tieredIndexes);
+      UserQuery query = new UserQuery(null, FIRST_BIRTH_DATE, LocalDate.of(1990, 12, 31), null,
+          "zi", null, "kyiv", null, null);
+      assertEquals(0, tieredIndexes.size());
+      assertEquals("none", tieredQueryEngine.explain(query).access().index());
+      assertEquals(ids(userQueryEngine.execute(query)), ids(tieredQueryEngine.execute(query)));
+
+      UserQuery byId = new UserQuery(1L, null, null, null, null, null, null, null, null);
+      assertEquals("id", tieredQueryEngine.explain(byId).access().index());
+      assertEquals(List.of(1L), ids(tieredQueryEngine.execute(byId)));
+      UserQuery byIdAndAddress = new UserQuery(1L, null, null, null, null, null, "kyiv", null,
+          null);
+      assertEquals(List.of("id = 1", "address contains 'kyiv'"),
+          tieredQueryEngine.explain(byIdAndAddress).filters());
+      assertEquals(0, meterRegistry.get("user.repository.cache.requests").counters().stream()
+          .mapToDouble(Counter::count).sum());
+    } finally {
+      tieredUserRepository.close();
+    }
+  }
+
+  private static void insertUsers(UserRepository userRepository) {
+    for (int i = 0; i < USERS; i++) {
+      userRepository.insert(User.builder()
+          .email("user" + i + "@example.com")
+          .firstName("First" + i)
+          .lastName((i % 100 == 0 ? "Zimmer" : "Smith") + i)
+          .birthDate(FIRST_BIRTH_DATE.plusDays(i * 10L))
+          .address("Street " + i + ", " + (i % 2 == 0 ? "Kyiv" : "Lviv"))
+          .build());
+    }
+  }
+
+  private static List<Long> ids(List<User> users) {
+    return users.stream().map(User::getId).toList();
+  }
+
+}
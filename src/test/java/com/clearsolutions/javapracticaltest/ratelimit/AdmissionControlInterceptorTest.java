@@ -0,0 +1,166 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.clearsolutions.javapracticaltest.controller.UserController;
+import com.clearsolutions.javapracticaltest.idempotency.IdempotencyService;
+import com.clearsolutions.javapracticaltest.jsoncache.EncodedJson;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import com.clearsolutions.javapracticaltest.service.ValidationService;
+import com.clearsolutions.javapracticaltest.service.impl.UserServiceImpl;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+@WebMvcTest(controllers = UserController.class, properties = {
+    "admission.tokensPerSecond=0.001",
+    "admission.burstCapacity=3",
+    "admission.maxClients=100",
+    "admission.rangeSearchCost=2",
+    "admission.queryCost=2",
+    "admission.pointCost=1",
+    "admission.maxConcurrentCost=2",
+    "admission.concurrencyRetryAfter=5"})
+@Import({IdempotencyService.class, ClientIdResolver.class, ValidationService.class})
+class AdmissionControlInterceptorTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private UserServiceImpl userService;
+
+  @Test
+  void preHandleRejectsClientOverItsRateTest() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.0.1")))
+          .andExpect(status().isOk());
+    }
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.0.1")))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1000"))
+        .andExpect(jsonPath("$.message").value("Too many requests. Please slow down."));
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.0.2")))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void preHandleIgnoresUntrustedClientHeaderTest() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.1.1"))
+              .header("X-Client-Id", "client-" + i))
+          .andExpect(status().isOk());
+    }
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.1.1"))
+            .header("X-Client-Id", "client-3"))
+        .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  void preHandleRejectsOverConcurrencyLimitTest() throws Exception {
+    CompletableFuture<EncodedJson> search = new CompletableFuture<>();
+    when(userService.searchEncodedUsersByBirthDateRange(any(LocalDate.class),
+        any(LocalDate.class))).thenReturn(search);
+    MvcResult result = mockMvc.perform(searchFrom("10.0.2.1"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.2.2")))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"))
+        .andExpect(jsonPath("$.message").value("Server is busy. Please try again later."));
+    search.complete(EncodedJson.arrayOf(List.of()));
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk());
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.2.2")))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void preHandleKeepsTokensOfRequestsRejectedAsBusyTest() throws Exception {
+    CompletableFuture<EncodedJson> search = new CompletableFuture<>();
+    when(userService.searchEncodedUsersByBirthDateRange(any(LocalDate.class),
+        any(LocalDate.class))).thenReturn(search);
+    MvcResult result = mockMvc.perform(searchFrom("10.0.5.1"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.5.2")))
+          .andExpect(status().isTooManyRequests())
+          .andExpect(jsonPath("$.message").value("Server is busy. Please try again later."));
+    }
+    search.complete(EncodedJson.arrayOf(List.of()));
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk());
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.5.2")))
+          .andExpect(status().isOk());
+    }
+  }
+
+  @Test
+  void afterCompletionReleasesPermitsOnceAfterAsyncDispatchTest() throws Exception {
+    CompletableFuture<EncodedJson> firstSearch = new CompletableFuture<>();
+    CompletableFuture<EncodedJson> secondSearch = new CompletableFuture<>();
+    when(userService.searchEncodedUsersByBirthDateRange(any(LocalDate.class),
+        any(LocalDate.class))).thenReturn(firstSearch, secondSearch);
+    MvcResult first = mockMvc.perform(searchFrom("10.0.3.1"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    firstSearch.complete(EncodedJson.arrayOf(List.of()));
+    mockMvc.perform(asyncDispatch(first))
+        .andExpect(status().isOk());
+    MvcResult second = mockMvc.perform(searchFrom("10.0.3.2"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.3.3")))
+        .andExpect(status().isTooManyRequests());
+    secondSearch.complete(EncodedJson.arrayOf(List.of()));
+    mockMvc.perform(asyncDispatch(second))
+        .andExpect(status().isOk());
+    mockMvc.perform(delete("/users/1").with(remoteAddr("10.0.3.3")))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void preHandleChargesQueryCostTest() throws Exception {
+    when(userService.queryEncodedUsers(any(UserQuery.class)))
+        .thenReturn(EncodedJson.arrayOf(List.of()));
+    mockMvc.perform(get("/users/query").with(remoteAddr("10.0.4.1")))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/users/query").with(remoteAddr("10.0.4.1")))
+        .andExpect(status().isTooManyRequests());
+  }
+
+  private static RequestBuilder searchFrom(String address) {
+    return get("/users")
+        .param("fromDate", "2000-01-01")
+        .param("toDate", "2000-01-02")
+        .with(remoteAddr(address));
+  }
+
+  private static RequestPostProcessor remoteAddr(String address) {
+    return request -> {
+      request.setRemoteAddr(address);
+      return request;
+    };
+  }
+
+}
@@ -0,0 +1,78 @@
+package com.clearsolutions.javapracticaltest.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClientRateLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private ClientRateLimiter rateLimiter;
+
+  @BeforeEach
+  public void init() {
+    rateLimiter = new ClientRateLimiter(10, 10, 2, clock::get);
+  }
+
+  @Test
+  void tryAcquireWithinBurstTest() {
+    for (int i = 0; i < 10; i++) {
+      assertEquals(0L, rateLimiter.tryAcquire("client", 1));
+    }
+    assertTrue(rateLimiter.tryAcquire("client", 1) > 0);
+  }
+
+  @Test
+  void tryAcquireAppliesCostTest() {
+    assertEquals(0L, rateLimiter.tryAcquire("client", 8));
+    long waitNanos = rateLimiter.tryAcquire("client", 8);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(600), waitNanos);
+    clock.addAndGet(waitNanos);
+    assertEquals(0L, rateLimiter.tryAcquire("client", 8));
+  }
+
+  @Test
+  void tryAcquireKeepsClientsIndependentTest() {
+    assertEquals(0L, rateLimiter.tryAcquire("first", 10));
+    assertTrue(rateLimiter.tryAcquire("first", 1) > 0);
+    assertEquals(0L, rateLimiter.tryAcquire("second", 10));
+  }
+
+  @Test
+  void tryAcquireEvictsRefilledBucketsTest() {
+    rateLimiter.tryAcquire("first", 1);
+    rateLimiter.tryAcquire("second", 1);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertEquals(0L, rateLimiter.tryAcquire("third", 1));
+    assertEquals(1, rateLimiter.trackedClients());
+  }
+
+  @Test
+  void tryAcquireFallsBackToOverflowBucketTest() {
+    rateLimiter.tryAcquire("first", 10);
+    rateLimiter.tryAcquire("second", 10);
+    assertEquals(0L, rateLimiter.tryAcquire("third", 10));
+    assertTrue(rateLimiter.tryAcquire("fourth", 1) > 0);
+    assertEquals(2, rateLimiter.trackedClients());
+  }
+
+  @Test
+  void tryAcquireSweepsAtMostOncePerRefillIntervalTest() {
+    rateLimiter.tryAcquire("first", 1);
+    rateLimiter.tryAcquire("second", 10);
+    rateLimiter.tryAcquire("third", 1);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertEquals(0L, rateLimiter.tryAcquire("fourth", 10));
+    assertTrue(rateLimiter.tryAcquire("fifth", 1) > 0);
+    assertEquals(2, rateLimiter.trackedClients());
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+    assertEquals(0L, rateLimiter.tryAcquire("sixth", 1));
+    assertEquals(1, rateLimiter.trackedClients());
+  }
+
+}
@@ -0,0 +1,34 @@
+package com.clearsolutions.javapracticaltest.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.UserSnapshot;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class InMemoryUserRepositoryTest extends UserRepositoryContractTest {
+
+  private InMemoryUserRepository inMemoryUserRepository;
+
+  @Override
+  protected UserRepository createRepository() {
+    inMemoryUserRepository = new InMemoryUserRepository();
+    return inMemoryUserRepository;
+  }
+
+  @Test
+  void snapshotIsNotAffectedByLaterWritesTest() {
+    User user = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    UserSnapshot snapshot = inMemoryUserRepository.snapshot();
+    userRepository.insert(newUser("second", LocalDate.of(1990, 1, 1)));
+    userRepository.replace(user, user.toBuilder().email("changed").build());
+    userRepository.delete(user.getId());
+    assertEquals(1, snapshot.size());
+    assertSame(user, snapshot.findById(user.getId()).orElseThrow());
+    assertEquals("first", snapshot.stream().findFirst().orElseThrow().getEmail());
+  }
+
+}
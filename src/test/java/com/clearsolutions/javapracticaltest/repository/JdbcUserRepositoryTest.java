@@ -0,0 +1,122 @@
+package com.clearsolutions.javapracticaltest.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.clearsolutions.javapracticaltest.exception.FieldTooLongException;
+import com.clearsolutions.javapracticaltest.exception.WriteBacklogFullException;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.repository.impl.JdbcUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.JdbcUserRepositoryProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class JdbcUserRepositoryTest extends UserRepositoryContractTest {
+
+  private HikariDataSource dataSource;
+
+  private JdbcUserRepository jdbcUserRepository;
+
+  @Override
+  protected UserRepository createRepository() {
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    jdbcUserRepository = newRepository();
+    return jdbcUserRepository;
+  }
+
+  @AfterEach
+  public void closeRepository() {
+    jdbcUserRepository.close();
+    dataSource.close();
+  }
+
+  @Test
+  void flushPersistsPendingChangesTest() {
+    User kept = userRepository.insert(newUser("kept", LocalDate.of(1990, 1, 1)));
+    User deleted = userRepository.insert(newUser("deleted", LocalDate.of(1990, 1, 1)));
+    jdbcUserRepository.flush();
+    userRepository.replace(kept, kept.toBuilder().email("changed").build());
+    userRepository.delete(deleted.getId());
+    jdbcUserRepository.close();
+
+    jdbcUserRepository = newRepository();
+    assertEquals("changed", jdbcUserRepository.findById(kept.getId()).orElseThrow().getEmail());
+    assertTrue(jdbcUserRepository.findById(deleted.getId()).isEmpty());
+    assertTrue(jdbcUserRepository.insert(newUser("next", LocalDate.of(1990, 1, 1))).getId()
+        > deleted.getId());
+  }
+
+  @Test
+  void findByBirthDateRangeProjectsStoredUsersTest() {
+    User user = userRepository.insert(newUser("stored", LocalDate.of(1990, 1, 1)));
+    jdbcUserRepository.flush();
+    List<ProjectedUser> users = userRepository.findByBirthDateRange(LocalDate.of(1990, 1, 1),
+        LocalDate.of(1990, 1, 1), UserProjection.of(List.of("id", "birthDate")));
+    assertEquals(List.of(user.getId(), LocalDate.of(1990, 1, 1)), List.of(users.get(0).values()));
+  }
+
+  @Test
+  void insertRejectsOversizedValueTest() {
+    long version = userRepository.version();
+    User user = newUser("oversized", LocalDate.of(1990, 1, 1)).toBuilder()
+        .address("a".repeat(1025))
+        .build();
+    assertThrows(FieldTooLongException.class, () -> userRepository.insert(user));
+    assertEquals(version, userRepository.version());
+  }
+
+  @Test
+  void flushDropsChangesRejectedByDatabaseTest() {
+    User rejected = userRepository.insert(newUser(null, LocalDate.of(1990, 1, 1)));
+    User accepted = userRepository.insert(newUser("accepted", LocalDate.of(1990, 1, 1)));
+    jdbcUserRepository.flush();
+    jdbcUserRepository.close();
+
+    jdbcUserRepository = newRepository();
+    assertTrue(jdbcUserRepository.findById(rejected.getId()).isEmpty());
+    assertEquals("accepted",
+        jdbcUserRepository.findById(accepted.getId()).orElseThrow().getEmail());
+  }
+
+  @Test
+  void rejectsChangesOverPendingLimitWhileFlushesFailTest() {
+    jdbcUserRepository.close();
+    jdbcUserRepository = newRepository(3);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("ALTER TABLE users RENAME TO unavailable_users");
+    User first = jdbcUserRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    jdbcUserRepository.insert(newUser("second", LocalDate.of(1990, 1, 1)));
+    jdbcUserRepository.insert(newUser("third", LocalDate.of(1990, 1, 1)));
+    long version = jdbcUserRepository.version();
+    assertThrows(WriteBacklogFullException.class,
+        () -> jdbcUserRepository.insert(newUser("fourth", LocalDate.of(1990, 1, 1))));
+    assertEquals(version, jdbcUserRepository.version());
+    assertTrue(jdbcUserRepository.replace(first, first.toBuilder().email("changed").build()));
+
+    jdbcTemplate.execute("ALTER TABLE unavailable_users RENAME TO users");
+    User fourth = jdbcUserRepository.insert(newUser("fourth", LocalDate.of(1990, 1, 1)));
+    assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?",
+        Integer.class, "changed"));
+    assertEquals("fourth", jdbcUserRepository.findById(fourth.getId()).orElseThrow().getEmail());
+  }
+
+  private JdbcUserRepository newRepository() {
+    return newRepository(10_000);
+  }
+
+  private JdbcUserRepository newRepository(int maxPending) {
+    return new JdbcUserRepository(dataSource,
+        new JdbcUserRepositoryProperties(100, Duration.ofMinutes(1), maxPending));
+  }
+
+}
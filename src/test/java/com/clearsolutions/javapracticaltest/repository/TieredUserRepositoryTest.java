@@ -0,0 +1,123 @@
+package com.clearsolutions.javapracticaltest.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserField;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.repository.impl.TieredUserRepository;
+import com.clearsolutions.javapracticaltest.repository.impl.TieredUserRepositoryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TieredUserRepositoryTest extends UserRepositoryContractTest {
+
+  private static final int CACHE_SIZE = 100;
+
+  @TempDir
+  private Path directory;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private TieredUserRepository tieredUserRepository;
+
+  @Override
+  protected UserRepository createRepository() {
+    meterRegistry = new SimpleMeterRegistry();
+    tieredUserRepository = new TieredUserRepository(new TieredUserRepositoryProperties(
+        directory.resolve("users.dat"), CACHE_SIZE, 1024), meterRegistry);
+    return tieredUserRepository;
+  }
+
+  @AfterEach
+  public void closeRepository() {
+    tieredUserRepository.close();
+  }
+
+  @Test
+  void cacheStaysBoundedAndPagesInColdUsersTest() {
+    for (int i = 0; i < 3000; i++) {
+      userRepository.insert(newUser("user" + i, LocalDate.of(1990, 1, 1)));
+    }
+    assertEquals(CACHE_SIZE, meterRegistry.get("user.repository.cache.size").gauge().value());
+    assertEquals("user0", userRepository.findById(1).orElseThrow().getEmail());
+    assertEquals("user0", userRepository.findById(1).orElseThrow().getEmail());
+    assertEquals(1, cacheRequests("miss"));
+    assertEquals(1, cacheRequests("hit"));
+    assertEquals(1, meterRegistry.get("user.repository.page.in").timer().count());
+  }
+
+  @Test
+  void fullScanStreamsUsersWithoutCachingThemTest() {
+    for (int i = 0; i < 3000; i++) {
+      userRepository.insert(newUser("user" + i, LocalDate.of(1990, 1, 1)));
+    }
+    Iterator<User> users = userRepository.streamAll(false).iterator();
+    assertEquals(1, users.next().getId());
+    userRepository.delete(2);
+    assertEquals(3, users.next().getId());
+    assertEquals(2999, userRepository.streamAll(true).count());
+    assertTrue(meterRegistry.get("user.repository.cache.size").gauge().value() <= CACHE_SIZE);
+    assertEquals(0, cacheRequests("hit") + cacheRequests("miss"));
+  }
+
+  @Test
+  void oversizedUserStaysOnHeapTest() {
+    User user = userRepository.insert(newUser("a".repeat(300), LocalDate.of(1990, 1, 1)));
+    for (int i = 0; i < CACHE_SIZE; i++) {
+      userRepository.insert(newUser("user" + i, LocalDate.of(1990, 1, 1)));
+    }
+    assertEquals(user.getEmail(), userRepository.findById(user.getId()).orElseThrow().getEmail());
+    List<ProjectedUser> users = userRepository.findByBirthDateRange(LocalDate.of(1990, 1, 1),
+        LocalDate.of(1990, 1, 1), UserProjection.of(List.of("email")));
+    assertEquals(user.getEmail(), users.get(0).get(UserField.EMAIL));
+    assertTrue(userRepository.replace(user, user.toBuilder().email("short").build()));
+    assertEquals(0, meterRegistry.get("user.repository.oversized.users").gauge().value());
+    assertEquals("short", userRepository.findById(user.getId()).orElseThrow().getEmail());
+  }
+
+  @Test
+  void fileInUseIsNotTruncatedTest() {
+    for (int i = 0; i <= CACHE_SIZE; i++) {
+      userRepository.insert(newUser("user" + i, LocalDate.of(1990, 1, 1)));
+    }
+    assertThrows(IllegalStateException.class, () -> new TieredUserRepository(
+        new TieredUserRepositoryProperties(directory.resolve("users.dat"), CACHE_SIZE, 1024),
+        new SimpleMeterRegistry()));
+    assertEquals("user0", userRepository.findById(1).orElseThrow().getEmail());
+  }
+
+  @Test
+  void temporaryFileWithoutConfiguredPathTest() {
+    TieredUserRepository first = new TieredUserRepository(
+        new TieredUserRepositoryProperties(null, CACHE_SIZE, 1024), new SimpleMeterRegistry());
+    TieredUserRepository second = new TieredUserRepository(
+        new TieredUserRepositoryProperties(null, CACHE_SIZE, 1024), new SimpleMeterRegistry());
+    try {
+      for (int i = 0; i <= CACHE_SIZE; i++) {
+        first.insert(newUser("first" + i, LocalDate.of(1990, 1, 1)));
+        second.insert(newUser("second" + i, LocalDate.of(1990, 1, 1)));
+      }
+      assertEquals("first0", first.findById(1).orElseThrow().getEmail());
+      assertEquals("second0", second.findById(1).orElseThrow().getEmail());
+    } finally {
+      first.close();
+      second.close();
+    }
+  }
+
+  private double cacheRequests(String result) {
+    return meterRegistry.get("user.repository.cache.requests").tag("result", result).counter()
+        .count();
+  }
+
+}
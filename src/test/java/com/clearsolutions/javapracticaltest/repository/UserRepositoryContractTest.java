@@ -0,0 +1,139 @@
+package com.clearsolutions.javapracticaltest.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
+import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserField;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behaviour every {@link UserRepository} implementation has to provide.
+ */
+public abstract class UserRepositoryContractTest {
+
+  protected UserRepository userRepository;
+
+  protected abstract UserRepository createRepository();
+
+  @BeforeEach
+  public void initRepository() {
+    userRepository = createRepository();
+  }
+
+  @Test
+  void insertAssignsIdsTest() {
+    User first = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    User second = userRepository.insert(newUser("second", LocalDate.of(1990, 1, 1)));
+    assertEquals(first.getId() + 1, second.getId());
+    assertEquals(1L, first.getVersion());
+    assertEquals("first", userRepository.findById(first.getId()).orElseThrow().getEmail());
+  }
+
+  @Test
+  void insertBeyondSegmentTest() {
+    for (int i = 0; i < 3000; i++) {
+      userRepository.insert(newUser("user" + i, LocalDate.of(1990, 1, 1)));
+    }
+    List<User> users = userRepository.streamAll(false).toList();
+    assertEquals(3000, users.size());
+    assertEquals("user2999", users.get(users.size() - 1).getEmail());
+    assertTrue(users.get(0).getId() < users.get(users.size() - 1).getId());
+    assertEquals(users.reversed().stream().map(User::getId).toList(),
+        userRepository.streamAll(true).map(User::getId).toList());
+  }
+
+  @Test
+  void replaceIncrementsVersionTest() {
+    User user = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    assertTrue(userRepository.replace(user, user.toBuilder().email("changed").build()));
+    User stored = userRepository.findById(user.getId()).orElseThrow();
+    assertEquals("changed", stored.getEmail());
+    assertEquals(2L, stored.getVersion());
+  }
+
+  @Test
+  void replaceRejectsStaleVersionTest() {
+    User user = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    assertTrue(userRepository.replace(user, user.toBuilder().email("winner").build()));
+    assertFalse(userRepository.replace(user, user.toBuilder().email("loser").build()));
+    assertEquals("winner", userRepository.findById(user.getId()).orElseThrow().getEmail());
+  }
+
+  @Test
+  void deleteTest() {
+    User user = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    assertTrue(userRepository.delete(user.getId()));
+    assertFalse(userRepository.delete(user.getId()));
+    assertTrue(userRepository.findById(user.getId()).isEmpty());
+    assertFalse(userRepository.replace(user, user.toBuilder().build()));
+    assertTrue(userRepository.streamAll(false).findAny().isEmpty());
+  }
+
+  @Test
+  void findByBirthDateRangeTest() {
+    userRepository.insert(newUser("before", LocalDate.of(1989, 12, 31)));
+    User from = userRepository.insert(newUser("from", LocalDate.of(1990, 1, 1)));
+    User to = userRepository.insert(newUser("to", LocalDate.of(1995, 1, 1)));
+    userRepository.insert(newUser("after", LocalDate.of(1995, 1, 2)));
+    List<User> users = userRepository.findByBirthDateRange(LocalDate.of(1990, 1, 1),
+        LocalDate.of(1995, 1, 1));
+    assertEquals(List.of(from.getId(), to.getId()), users.stream().map(User::getId).toList());
+  }
+
+  @Test
+  void findByBirthDateRangeSeesChangesTest() {
+    User user = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    userRepository.replace(user, user.toBuilder().birthDate(LocalDate.of(2000, 1, 1)).build());
+    assertTrue(userRepository.findByBirthDateRange(LocalDate.of(1990, 1, 1),
+        LocalDate.of(1990, 1, 1)).isEmpty());
+    assertEquals(1, userRepository.findByBirthDateRange(LocalDate.of(2000, 1, 1),
+        LocalDate.of(2000, 1, 1)).size());
+  }
+
+  @Test
+  void findByBirthDateRangeProjectsFieldsTest() {
+    User stored = userRepository.insert(newUser("stored", LocalDate.of(1990, 1, 1)));
+    UserProjection projection = UserProjection.of(List.of("email", "birthDate"));
+    List<ProjectedUser> users = userRepository.findByBirthDateRange(LocalDate.of(1990, 1, 1),
+        LocalDate.of(1990, 1, 1), projection);
+    assertEquals(1, users.size());
+    assertEquals(List.of("stored", LocalDate.of(1990, 1, 1)), List.of(users.get(0).values()));
+    assertThrows(IllegalArgumentException.class, () -> users.get(0).get(UserField.ID));
+    userRepository.replace(stored, stored.toBuilder().email("changed").build());
+    assertEquals("changed", userRepository.findByBirthDateRange(LocalDate.of(1990, 1, 1),
+        LocalDate.of(1990, 1, 1), projection).get(0).get(UserField.EMAIL));
+  }
+
+  @Test
+  void versionChangesOnEveryChangeTest() {
+    long initial = userRepository.version();
+    User user = userRepository.insert(newUser("first", LocalDate.of(1990, 1, 1)));
+    long inserted = userRepository.version();
+    userRepository.replace(user, user.toBuilder().email("changed").build());
+    long replaced = userRepository.version();
+    userRepository.streamAll(false).toList();
+    assertEquals(replaced, userRepository.version());
+    userRepository.delete(user.getId());
+    assertTrue(initial < inserted && inserted < replaced && replaced < userRepository.version());
+  }
+
+  protected static User newUser(String email, LocalDate birthDate) {
+    return User.builder()
+        .email(email)
+        .firstName("Test")
+        .lastName("Test")
+        .birthDate(birthDate)
+        .address("Test Address")
+        .phoneNumber("Test Phone")
+        .build();
+  }
+
+}
@@ -5,18 +5,36 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.clearsolutions.javapracticaltest.coalescing.RequestCoalescer;
 import com.clearsolutions.javapracticaltest.dto.UserDto;
 import com.clearsolutions.javapracticaltest.exception.AgeValidationException;
+import com.clearsolutions.javapracticaltest.exception.InvalidQueryException;
+import com.clearsolutions.javapracticaltest.exception.UserNotFoundException;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCache;
+import com.clearsolutions.javapracticaltest.jsoncache.UserJsonCacheProperties;
 import com.clearsolutions.javapracticaltest.mapper.DataMapper;
+import com.clearsolutions.javapracticaltest.model.ProjectedUser;
 import com.clearsolutions.javapracticaltest.model.User;
+import com.clearsolutions.javapracticaltest.model.UserField;
+import com.clearsolutions.javapracticaltest.model.UserProjection;
+import com.clearsolutions.javapracticaltest.query.UserIndexes;
+import com.clearsolutions.javapracticaltest.query.UserQuery;
+import com.clearsolutions.javapracticaltest.query.UserQueryEngine;
+import com.clearsolutions.javapracticaltest.repository.impl.InMemoryUserRepository;
 import com.clearsolutions.javapracticaltest.service.impl.UserServiceImpl;
 import com.clearsolutions.javapracticaltest.util.PatchUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.fge.jsonpatch.JsonPatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +43,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceImplTest {
@@ -40,9 +59,13 @@ class UserServiceImplTest {
   @Mock
   private PatchUtil patchUtil;
 
-  private List<User> users = new ArrayList<>();
+  private InMemoryUserRepository userRepository = new InMemoryUserRepository();
 
-  private final long USER_ID = 0L;
+  private UserJsonCache userJsonCache;
+
+  private UserIndexes userIndexes;
+
+  private final long USER_ID = 1L;
 
   private User user;
 
@@ -50,9 +73,13 @@ class UserServiceImplTest {
 
   @BeforeEach
   public void init() {
-    userService = new UserServiceImpl(validationService, userMapper, patchUtil, users);
+    userJsonCache = new UserJsonCache(new UserJsonCacheProperties(DataSize.ofMegabytes(1)),
+        userMapper, new ObjectMapper().registerModule(new JavaTimeModule()));
+    userIndexes = new UserIndexes(userRepository);
+    userService = new UserServiceImpl(validationService, userMapper, patchUtil, userRepository,
+        userJsonCache, new RequestCoalescer(new SimpleMeterRegistry()), userIndexes,
+        new UserQueryEngine(userRepository, userIndexes));
     user = User.builder()
-        .id(0L)
         .email("test@example.com")
         .firstName("Test")
         .lastName("Test")
@@ -61,7 +88,7 @@ class UserServiceImplTest {
         .phoneNumber("Test Phone")
         .build();
     userDto = UserDto.builder()
-        .id(0L)
+        .id(USER_ID)
         .email("test@example.com")
         .firstName("Test")
         .lastName("Test")
@@ -69,17 +96,18 @@ class UserServiceImplTest {
         .address("Test Address")
         .phoneNumber("Test Phone")
         .build();
-    users.add(user);
+    userRepository.insert(user);
   }
 
   @Test
   void testCreateUserValidAge() {
     doNothing().when(validationService).validateUserAge(any(LocalDate.class));
-    when(userMapper.toEntity(any(UserDto.class))).thenReturn(user);
+    when(userMapper.toEntity(any(UserDto.class))).thenReturn(User.builder().build());
     when(userMapper.toDto(any(User.class))).thenReturn(userDto);
     UserDto createdUser = userService.create(userDto);
     assertNotNull(createdUser);
     assertEquals(userDto.getId(), createdUser.getId());
+    assertEquals(2, userRepository.snapshot().size());
   }
 
   @Test
@@ -92,26 +120,31 @@ class UserServiceImplTest {
   @Test
   void updatePartiallyTest() {
     JsonPatch patchData = new JsonPatch(List.of());
-    when(userMapper.toDto(user)).thenReturn(userDto);
+    when(userMapper.toDto(any(User.class))).thenReturn(userDto);
     when(patchUtil.applyPatch(patchData, userDto, UserDto.class)).thenReturn(userDto);
     doNothing().when(validationService).validateDto(userDto);
-    when(userMapper.toDto(user)).thenReturn(userDto);
     UserDto result = userService.updatePartially(USER_ID, patchData);
     assertEquals(userDto, result);
+    assertEquals(2L, userService.findUserById(USER_ID).getVersion());
   }
 
   @Test
   void updateTest() {
-    when(userService.update(anyLong(), any(UserDto.class))).thenReturn(userDto);
-    when(userMapper.toDto(user)).thenReturn(userDto);
+    when(userMapper.toDto(any(User.class))).thenReturn(userDto);
     UserDto updatedUserDto = userService.update(USER_ID, userDto);
     assertEquals(userDto, updatedUserDto);
+    assertEquals(2L, userService.findUserById(USER_ID).getVersion());
   }
 
   @Test
   void deleteTest() {
     userService.delete(USER_ID);
-    assertTrue(users.isEmpty());
+    assertEquals(0, userRepository.snapshot().size());
+  }
+
+  @Test
+  void deleteMissingUserTest() {
+    assertThrows(UserNotFoundException.class, () -> userService.delete(USER_ID + 1));
   }
 
   @Test
@@ -139,4 +172,67 @@ class UserServiceImplTest {
     assertEquals(1, result.size());
   }
 
-}
\ No newline at end of file
+  @Test
+  void searchUsersByBirthDateRangeWithProjectionTest() {
+    doNothing().when(validationService)
+        .validateUserDateRange(any(LocalDate.class), any(LocalDate.class));
+    List<ProjectedUser> result = userService.searchUsersByBirthDateRange(
+        LocalDate.of(1998, 12, 31), LocalDate.of(2005, 1, 2),
+        UserProjection.of(List.of("email")));
+    assertEquals(1, result.size());
+    assertEquals("test@example.com", result.get(0).get(UserField.EMAIL));
+    verifyNoInteractions(userMapper);
+  }
+
+  @Test
+  void findEncodedUserByIdEncodesEachVersionOnceTest() {
+    when(userMapper.toDto(any(User.class))).thenReturn(userDto);
+    String json = new String(userService.findEncodedUserById(USER_ID).documents().get(0),
+        StandardCharsets.UTF_8);
+    assertEquals(json, new String(userService.findEncodedUserById(USER_ID).documents().get(0),
+        StandardCharsets.UTF_8));
+    verify(userMapper, times(1)).toDto(any(User.class));
+    userService.update(USER_ID, userDto);
+    userService.findEncodedUserById(USER_ID);
+    verify(userMapper, times(3)).toDto(any(User.class));
+  }
+
+  @Test
+  void searchEncodedUsersByBirthDateRangeSeesChangesTest() {
+    when(userMapper.toDto(any(User.class))).thenAnswer(invocation -> UserDto.builder()
+        .email(invocation.<User>getArgument(0).getEmail())
+        .build());
+    LocalDate fromDate = LocalDate.of(1998, 12, 31);
+    LocalDate toDate = LocalDate.of(2005, 1, 2);
+    assertEquals(1, userService.searchEncodedUsersByBirthDateRange(fromDate, toDate).join()
+        .documents().size());
+    userService.delete(USER_ID);
+    assertEquals(0, userService.searchEncodedUsersByBirthDateRange(fromDate, toDate).join()
+        .documents().size());
+  }
+
+  @Test
+  void deleteRemovesUserFromQueryIndexesTest() {
+    userIndexes.put(user);
+    assertEquals(1, userIndexes.size());
+    userService.delete(USER_ID);
+    assertEquals(0, userIndexes.size());
+  }
+
+  @Test
+  void deleteBetweenUpdateAndIndexingLeavesUserUnindexedTest() {
+    userIndexes.put(user);
+    User updatedUser = user.toBuilder().firstName("Updated").build();
+    assertTrue(userRepository.replace(user, updatedUser));
+    userService.delete(USER_ID);
+    userIndexes.put(updatedUser);
+    assertEquals(0, userIndexes.size());
+  }
+
+  @Test
+  void queryWithNonPositiveLimitTest() {
+    UserQuery query = new UserQuery(null, null, null, null, "te", null, null, null, 0);
+    assertThrows(InvalidQueryException.class, () -> userService.queryEncodedUsers(query));
+  }
+
+}